@@ -0,0 +1,23 @@
+#!/bin/bash
+# Builds the AOT-processed jar and a class-data-sharing archive for fast-starting instances.
+# Output: target/fast-startup/orderemanagement-0.0.1-SNAPSHOT.jar (+ lib/) and application.jsa
+set -e
+
+JAR=orderemanagement-0.0.1-SNAPSHOT.jar
+OUT=target/fast-startup
+
+./mvnw clean package -Pfast-startup -DskipTests
+
+# Unpack into the layout CDS needs (stable classpath of individual jars)
+rm -rf "$OUT"
+java -Djarmode=tools -jar "target/$JAR" extract --destination "$OUT"
+
+# Training run: refresh the context once, then dump the loaded classes into the archive.
+# Needs the same MySQL/Redis settings as a normal start.
+java -XX:ArchiveClassesAtExit="$OUT/application.jsa" \
+     -Dspring.aot.enabled=true \
+     -Dspring.profiles.active=fast-startup \
+     -Dspring.context.exit=onRefresh \
+     -jar "$OUT/$JAR"
+
+echo "Fast-startup build ready in $OUT"
@@ -0,0 +1,132 @@
+package com.example.orderemanagement.cluster;
+
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks live instances through Redis heartbeats (a sorted set scored by last-seen time)
+ * and maintains the consistent-hash ring that assigns each product to one owner node.
+ */
+@Service
+@Slf4j
+public class ClusterMembershipService {
+    private static final String MEMBERS_KEY = "cluster:members";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    @Getter
+    private final boolean enabled;
+    private final String configuredUrl;
+    private final long memberTtlMillis;
+    private final long handoffGraceMillis;
+    private final int virtualNodes;
+
+    private volatile String localUrl;
+    @Getter
+    private volatile String selfUrl;
+    private volatile ConsistentHashRing ring = ConsistentHashRing.empty();
+    private volatile ConsistentHashRing previousRing = ConsistentHashRing.empty();
+    private volatile long ringChangedAt;
+
+    public ClusterMembershipService(RedisTemplate<String, String> redisTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${cluster.enabled:false}") boolean enabled,
+                                    @Value("${cluster.advertised-url:}") String configuredUrl,
+                                    @Value("${cluster.member-ttl-ms:5000}") long memberTtlMillis,
+                                    @Value("${cluster.handoff-grace-ms:3000}") long handoffGraceMillis,
+                                    @Value("${cluster.virtual-nodes:128}") int virtualNodes) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.configuredUrl = configuredUrl;
+        this.memberTtlMillis = memberTtlMillis;
+        this.handoffGraceMillis = handoffGraceMillis;
+        this.virtualNodes = virtualNodes;
+        Gauge.builder("cluster.members", this, service -> service.ring.getNodes().size())
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        localUrl = configuredUrl.isBlank() ? "http://localhost:" + event.getWebServer().getPort() : configuredUrl;
+    }
+
+    // Joins only once warm-up has finished, so peers never route buys to a cold instance
+    @EventListener
+    public void onReadinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        if (!enabled || localUrl == null)
+            return;
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+            selfUrl = localUrl;
+            heartbeat();
+            log.info("Joined cluster as {}", selfUrl);
+        } else {
+            leave();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cluster.heartbeat-interval-ms:1000}")
+    public void heartbeat() {
+        if (!enabled || selfUrl == null)
+            return;
+        try {
+            long now = System.currentTimeMillis();
+            redisTemplate.opsForZSet().add(MEMBERS_KEY, selfUrl, now);
+            redisTemplate.opsForZSet().removeRangeByScore(MEMBERS_KEY, 0, now - memberTtlMillis);
+            Set<String> members = redisTemplate.opsForZSet().range(MEMBERS_KEY, 0, -1);
+            if (members != null && !members.equals(ring.getNodes()))
+                updateRing(members);
+        } catch (Exception e) {
+            log.warn("Cluster heartbeat failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void leave() {
+        if (!enabled || selfUrl == null)
+            return;
+        try {
+            redisTemplate.opsForZSet().remove(MEMBERS_KEY, selfUrl);
+            selfUrl = null;
+        } catch (Exception e) {
+            log.warn("Could not deregister {} from cluster", selfUrl, e);
+        }
+    }
+
+    public String ownerOf(Long productId) {
+        return ring.ownerOf(productId.toString());
+    }
+
+    /**
+     * True when this node owns the product and has owned it long enough that no other node
+     * can still be serializing purchases for it under the previous ring.
+     */
+    public boolean ownsLocally(Long productId) {
+        if (!enabled || selfUrl == null)
+            return false;
+        String key = productId.toString();
+        if (!selfUrl.equals(ring.ownerOf(key)))
+            return false;
+        return selfUrl.equals(previousRing.ownerOf(key))
+                || System.currentTimeMillis() - ringChangedAt > handoffGraceMillis;
+    }
+
+    private synchronized void updateRing(Set<String> members) {
+        previousRing = ring;
+        ring = new ConsistentHashRing(members, virtualNodes);
+        ringChangedAt = System.currentTimeMillis();
+        log.info("Cluster membership changed: {}", members);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.orderemanagement.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring. Each node is placed at {@code virtualNodes} points so keys
+ * spread evenly and only about 1/N of them move when a node joins or leaves.
+ */
+public final class ConsistentHashRing {
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final Set<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = new TreeSet<>(nodes);
+        for (String node : this.nodes)
+            for (int i = 0; i < virtualNodes; i++)
+                ring.put(hash(node + "#" + i), node);
+    }
+
+    public static ConsistentHashRing empty() {
+        return new ConsistentHashRing(Set.of(), 0);
+    }
+
+    public String ownerOf(String key) {
+        if (ring.isEmpty())
+            return null;
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long value = 0;
+            for (int i = 0; i < 8; i++)
+                value = (value << 8) | (digest[i] & 0xff);
+            return value;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
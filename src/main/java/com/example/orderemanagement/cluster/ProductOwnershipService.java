@@ -0,0 +1,197 @@
+package com.example.orderemanagement.cluster;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.orderemanagement.dto.BuyProductRequestDto;
+import com.example.orderemanagement.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends a buy to the node that owns the product on the hash ring, so purchases of one
+ * product are serialized inside a single JVM instead of contending on the Redis lock.
+ * Forwarded requests are signed with an HMAC over the timestamp, sender and body using the
+ * shared {@code cluster.secret}; the owner only skips rate limiting and routing for requests
+ * whose signature checks out, so clients cannot get around either by setting the header.
+ * Routing refuses to start without a secret: an unsigned forward would be routed again by
+ * its receiver, and two nodes with different views of the ring could bounce a buy between
+ * them until it times out.
+ */
+@Service
+@Slf4j
+public class ProductOwnershipService {
+    public static final String FORWARDED_HEADER = "X-Forwarded-By-Node";
+    public static final String TIMESTAMP_HEADER = "X-Cluster-Timestamp";
+    public static final String SIGNATURE_HEADER = "X-Cluster-Signature";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final ClusterMembershipService membershipService;
+    private final ProductRepository productRepository;
+    private final MeterRegistry meterRegistry;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec signingKey;
+    private final long maxSignatureAgeMillis;
+
+    public ProductOwnershipService(ClusterMembershipService membershipService,
+                                   ProductRepository productRepository,
+                                   MeterRegistry meterRegistry,
+                                   RestTemplateBuilder restTemplateBuilder,
+                                   ObjectMapper objectMapper,
+                                   @Value("${cluster.forward-timeout-ms:5000}") long forwardTimeoutMillis,
+                                   @Value("${cluster.secret:}") String secret,
+                                   @Value("${cluster.signature-max-age-ms:30000}") long maxSignatureAgeMillis) {
+        this.membershipService = membershipService;
+        this.productRepository = productRepository;
+        this.meterRegistry = meterRegistry;
+        this.restTemplate = restTemplateBuilder
+                .connectTimeout(Duration.ofSeconds(1))
+                .readTimeout(Duration.ofMillis(forwardTimeoutMillis))
+                .build();
+        this.objectMapper = objectMapper;
+        this.signingKey = secret.isBlank() ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.maxSignatureAgeMillis = maxSignatureAgeMillis;
+        if (membershipService.isEnabled() && signingKey == null)
+            throw new IllegalStateException("cluster.secret must be set when cluster.enabled is true");
+    }
+
+    /** Whether the request was forwarded by another node of this cluster rather than sent by a client. */
+    public boolean isTrustedForward(BuyProductRequestDto requestDto, String forwardedBy, String timestamp, String signature) {
+        if (signingKey == null || forwardedBy == null || timestamp == null || signature == null)
+            return false;
+        long sentAt;
+        try {
+            sentAt = Long.parseLong(timestamp);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (Math.abs(System.currentTimeMillis() - sentAt) > maxSignatureAgeMillis)
+            return false;
+        byte[] expected = sign(timestamp, forwardedBy, body(requestDto)).getBytes(StandardCharsets.UTF_8);
+        boolean trusted = MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.UTF_8));
+        if (!trusted)
+            meterRegistry.counter("cluster.buy.forwarded", "outcome", "bad_signature").increment();
+        return trusted;
+    }
+
+    public Optional<ResponseEntity<String>> forwardIfRemote(BuyProductRequestDto requestDto, boolean alreadyForwarded) {
+        if (!membershipService.isEnabled() || alreadyForwarded)
+            return Optional.empty();
+        Long productId = requestDto.getProductId();
+        if (productId == null && requestDto.getProductName() != null)
+            productId = productRepository.findByName(requestDto.getProductName()).map(p -> p.getId()).orElse(null);
+        if (productId == null)
+            return Optional.empty();
+
+        String owner = membershipService.ownerOf(productId);
+        String self = membershipService.getSelfUrl();
+        if (owner == null || owner.equals(self))
+            return Optional.empty();
+
+        String body = body(requestDto);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(FORWARDED_HEADER, self);
+        if (signingKey != null) {
+            String timestamp = String.valueOf(System.currentTimeMillis());
+            headers.set(TIMESTAMP_HEADER, timestamp);
+            headers.set(SIGNATURE_HEADER, sign(timestamp, self, body));
+        }
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(owner + "/api/customers/products/buy",
+                    HttpMethod.POST, new HttpEntity<>(body, headers), String.class);
+            meterRegistry.counter("cluster.buy.forwarded", "outcome", "success").increment();
+            return Optional.of(ResponseEntity.status(response.getStatusCode())
+                    .headers(passThroughHeaders(response.getHeaders()))
+                    .body(response.getBody()));
+        } catch (HttpStatusCodeException e) {
+            meterRegistry.counter("cluster.buy.forwarded", "outcome", "rejected").increment();
+            return Optional.of(ResponseEntity.status(e.getStatusCode())
+                    .headers(passThroughHeaders(e.getResponseHeaders()))
+                    .body(e.getResponseBodyAsString()));
+        } catch (ResourceAccessException e) {
+            if (neverReachedOwner(e)) {
+                // Owner unreachable: process here under the Redis lock until the ring drops it
+                meterRegistry.counter("cluster.buy.forwarded", "outcome", "unreachable").increment();
+                log.warn("Owner {} of product {} unreachable, processing locally", owner, productId);
+                return Optional.empty();
+            }
+            // The owner may have taken the order before the response was lost; buying here
+            // as well could create it twice, so the client has to check and retry
+            meterRegistry.counter("cluster.buy.forwarded", "outcome", "timeout").increment();
+            log.warn("Owner {} of product {} did not answer a forwarded buy", owner, productId, e);
+            return Optional.of(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body("Purchase outcome unknown; check order history before retrying"));
+        }
+    }
+
+    // Only failures to open the connection prove the owner never saw the request
+    private static boolean neverReachedOwner(ResourceAccessException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof UnknownHostException
+                    || cause instanceof NoRouteToHostException || cause instanceof HttpConnectTimeoutException)
+                return true;
+        }
+        return false;
+    }
+
+    // Both sides serialize the same DTO with the same mapper, so the signed bytes match
+    private String body(BuyProductRequestDto requestDto) {
+        try {
+            return objectMapper.writeValueAsString(requestDto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize purchase request", e);
+        }
+    }
+
+    private String sign(String timestamp, String sender, String body) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            byte[] digest = mac.doFinal((timestamp + "\n" + sender + "\n" + body).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static HttpHeaders passThroughHeaders(HttpHeaders source) {
+        HttpHeaders headers = new HttpHeaders();
+        if (source == null)
+            return headers;
+        if (source.getContentType() != null)
+            headers.setContentType(source.getContentType());
+        String retryAfter = source.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter != null)
+            headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+        return headers;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.orderemanagement.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.orderemanagement.monitoring.SqlStatisticsInterceptor;
+
+@Configuration
+public class HibernateConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatisticsCustomizer() {
+        SqlStatisticsInterceptor interceptor = new SqlStatisticsInterceptor();
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, interceptor);
+            properties.put(AvailableSettings.INTERCEPTOR, interceptor);
+        };
+    }
+}
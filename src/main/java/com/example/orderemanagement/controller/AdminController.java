@@ -1,6 +1,7 @@
 package com.example.orderemanagement.controller;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 
 import org.springframework.http.HttpStatus;
@@ -24,7 +25,9 @@ import com.example.orderemanagement.dto.UpdateProductRequestDto;
 import com.example.orderemanagement.model.Product;
 import com.example.orderemanagement.service.AdminService;
 import com.example.orderemanagement.service.ProductService;
+import com.example.orderemanagement.service.RateLimitService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -36,17 +39,20 @@ import org.springframework.web.bind.annotation.RequestParam;
 public class AdminController {
     private final AdminService adminService;
     private final ProductService productService;
+    private final RateLimitService rateLimitService;
     
     @PostMapping("/register")
-    public ResponseEntity<AdminResponseDto> createAdmin(@Valid @RequestBody AdminRequestDto requestDto) {
-        AdminResponseDto responseDto = adminService.register(requestDto);
-        return new ResponseEntity<>(responseDto, HttpStatus.CREATED);
+    public CompletableFuture<ResponseEntity<AdminResponseDto>> createAdmin(@Valid @RequestBody AdminRequestDto requestDto) {
+        return adminService.register(requestDto)
+                .thenApply(responseDto -> new ResponseEntity<>(responseDto, HttpStatus.CREATED));
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AdminResponseDto> loginAdmin(@Valid @RequestBody AdminLoginRequestDto requestDto) {
-        AdminResponseDto responseDto = adminService.login(requestDto);
-        return new ResponseEntity<>(responseDto, HttpStatus.OK);
+    public CompletableFuture<ResponseEntity<AdminResponseDto>> loginAdmin(@Valid @RequestBody AdminLoginRequestDto requestDto,
+                                                                          HttpServletRequest request) {
+        rateLimitService.checkLogin(requestDto.getEmail(), request.getRemoteAddr());
+        return adminService.login(requestDto)
+                .thenApply(responseDto -> new ResponseEntity<>(responseDto, HttpStatus.OK));
     }
 
     @PostMapping("/products/add")
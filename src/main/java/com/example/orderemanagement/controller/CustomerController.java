@@ -1,27 +1,51 @@
 package com.example.orderemanagement.controller;
 
+import com.example.orderemanagement.cluster.ProductOwnershipService;
 import com.example.orderemanagement.dto.BuyProductRequestDto;
 import com.example.orderemanagement.dto.CustomerLoginRequestDto;
 import com.example.orderemanagement.dto.CustomerRequestDto;
 import com.example.orderemanagement.dto.CustomerResponseDto;
-import com.example.orderemanagement.dto.ProductResponseDto;
+import com.example.orderemanagement.dto.CustomerSpendDto;
+import com.example.orderemanagement.dto.OrderResponseDto;
+import com.example.orderemanagement.dto.PurchaseTicketDto;
+import com.example.orderemanagement.dto.StockAvailabilityRequestDto;
+import com.example.orderemanagement.dto.TopSellerDto;
+import com.example.orderemanagement.service.CatalogFeedService;
+import com.example.orderemanagement.service.CatalogSnapshotService;
 import com.example.orderemanagement.service.CustomerService;
+import com.example.orderemanagement.service.OrderHistoryService;
 import com.example.orderemanagement.service.ProductService;
+import com.example.orderemanagement.service.PurchaseQueueService;
+import com.example.orderemanagement.service.RateLimitService;
+import com.example.orderemanagement.service.SalesAggregateService;
+import com.example.orderemanagement.service.SoldOutService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
+import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequiredArgsConstructor
@@ -29,17 +53,27 @@ import org.springframework.web.bind.annotation.RestController;
 public class CustomerController {
     private final CustomerService customerService;
     private final ProductService productService;
+    private final RateLimitService rateLimitService;
+    private final SalesAggregateService salesAggregateService;
+    private final OrderHistoryService orderHistoryService;
+    private final ProductOwnershipService productOwnershipService;
+    private final PurchaseQueueService purchaseQueueService;
+    private final SoldOutService soldOutService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final CatalogFeedService catalogFeedService;
 
     @PostMapping("/register")
-    public ResponseEntity<CustomerResponseDto> registerCustomer(@Valid @RequestBody CustomerRequestDto requestDto) {
-        CustomerResponseDto savedCustomer = customerService.registerCustomer(requestDto);
-        return new ResponseEntity<>(savedCustomer, HttpStatus.CREATED);
+    public CompletableFuture<ResponseEntity<CustomerResponseDto>> registerCustomer(@Valid @RequestBody CustomerRequestDto requestDto) {
+        return customerService.registerCustomer(requestDto)
+                .thenApply(savedCustomer -> new ResponseEntity<>(savedCustomer, HttpStatus.CREATED));
     }
 
     @PostMapping("/login")
-    public ResponseEntity<CustomerResponseDto> loginCustomer(@Valid @RequestBody CustomerLoginRequestDto requestDto) {
-        CustomerResponseDto loginResponse = customerService.loginCustomer(requestDto);
-        return new ResponseEntity<>(loginResponse, HttpStatus.OK);
+    public CompletableFuture<ResponseEntity<CustomerResponseDto>> loginCustomer(@Valid @RequestBody CustomerLoginRequestDto requestDto,
+                                                                                HttpServletRequest request) {
+        rateLimitService.checkLogin(requestDto.getEmail(), request.getRemoteAddr());
+        return customerService.loginCustomer(requestDto)
+                .thenApply(loginResponse -> new ResponseEntity<>(loginResponse, HttpStatus.OK));
     }
 
     @GetMapping("/{id}")
@@ -48,18 +82,134 @@ public class CustomerController {
         return new ResponseEntity<>(responseDto, HttpStatus.OK);
     }
 
+    @GetMapping("/{id}/orders")
+    public ResponseEntity<List<OrderResponseDto>> getOrderHistory(@PathVariable Long id,
+                                                                  @RequestParam(required = false) LocalDate since) {
+        List<OrderResponseDto> orders = orderHistoryService.getOrderHistory(id, since);
+        return new ResponseEntity<>(orders, HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/spend")
+    public ResponseEntity<CustomerSpendDto> getCustomerSpend(@PathVariable Long id) {
+        CustomerSpendDto responseDto = salesAggregateService.getCustomerSpend(id);
+        return new ResponseEntity<>(responseDto, HttpStatus.OK);
+    }
+
     @GetMapping("/products")
-    public ResponseEntity<List<ProductResponseDto>> getAllProducts() {
-        List<ProductResponseDto> products = productService.getAllProducts();
-        return new ResponseEntity<>(products, HttpStatus.OK);
+    public ResponseEntity<byte[]> getAllProducts(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogSnapshotService.Format format = CatalogSnapshotService.Format.negotiate(accept);
+        CatalogSnapshotService.Body body = catalogSnapshotService.current().body(format);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? body.gzipEtag() : body.etag();
+        if (ifNoneMatch != null && etagMatches(ifNoneMatch, etag))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING).build();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(format.mediaType());
+        if (gzip)
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        return response.body(body.bytes());
+    }
+
+    // Last-Event-ID is sent by EventSource on reconnect; ?since= lets a client resume after a restart
+    @GetMapping(path = "/products/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getProductFeed(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                                     @RequestParam(required = false) Long since) {
+        if (!catalogFeedService.isEnabled())
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header("X-Accel-Buffering", "no")
+                .body(catalogFeedService.open(lastEventId != null ? lastEventId : since));
+    }
+
+    @GetMapping("/products/top-sellers")
+    public ResponseEntity<List<TopSellerDto>> getTopSellers(@RequestParam(defaultValue = "10") int limit) {
+        List<TopSellerDto> topSellers = salesAggregateService.getTopSellers(Math.min(limit, 100));
+        return new ResponseEntity<>(topSellers, HttpStatus.OK);
+    }
+
+    @PostMapping("/products/availability")
+    public ResponseEntity<Map<Long, Integer>> getStockAvailability(@Valid @RequestBody StockAvailabilityRequestDto requestDto) {
+        Map<Long, Integer> availability = productService.getStockAvailability(requestDto);
+        return new ResponseEntity<>(availability, HttpStatus.OK);
     }
 
     @PostMapping("/products/buy")
-    public ResponseEntity<String> buyProduct(@Valid @RequestBody BuyProductRequestDto requestDto) {
-        System.out.println("-------------------------------------------------");
-        System.out.println("Request received: " + requestDto.getQuantity());
-        System.out.println("-------------------------------------------------");
+    public ResponseEntity<String> buyProduct(@Valid @RequestBody BuyProductRequestDto requestDto,
+                                             HttpServletRequest request,
+                                             @RequestHeader(value = ProductOwnershipService.FORWARDED_HEADER, required = false) String forwardedBy,
+                                             @RequestHeader(value = ProductOwnershipService.TIMESTAMP_HEADER, required = false) String timestamp,
+                                             @RequestHeader(value = ProductOwnershipService.SIGNATURE_HEADER, required = false) String signature) {
+        // The edge node already applied the limit to a forwarded request
+        boolean forwarded = productOwnershipService.isTrustedForward(requestDto, forwardedBy, timestamp, signature);
+        if (!forwarded)
+            rateLimitService.checkBuy(request.getUserPrincipal(), request.getRemoteAddr());
+        soldOutService.rejectIfSoldOut(requestDto.getProductId());
+        Optional<ResponseEntity<String>> ownerResponse = productOwnershipService.forwardIfRemote(requestDto, forwarded);
+        if (ownerResponse.isPresent())
+            return ownerResponse.get();
         Long orderId = productService.buyProduct(requestDto);
         return new ResponseEntity<>("Product bought successfully with order ID: " + orderId, HttpStatus.OK);
     }
+
+    @PostMapping("/products/buy-async")
+    public ResponseEntity<PurchaseTicketDto> buyProductAsync(@Valid @RequestBody BuyProductRequestDto requestDto,
+                                                             HttpServletRequest request) {
+        rateLimitService.checkBuy(request.getUserPrincipal(), request.getRemoteAddr());
+        PurchaseTicketDto ticket = purchaseQueueService.submit(requestDto);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/customers/purchases/" + ticket.getTicketId()))
+                .body(ticket);
+    }
+
+    @GetMapping("/purchases/{ticketId}")
+    public DeferredResult<PurchaseTicketDto> getPurchase(@PathVariable String ticketId,
+                                                         @RequestParam(defaultValue = "0") long waitMs) {
+        return purchaseQueueService.awaitTicket(ticketId, waitMs);
+    }
+
+    // gzip is accepted when listed (or covered by *) with a non-zero q-value; an explicit entry beats *
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+        Double gzip = null;
+        Double wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.toLowerCase().startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip"))
+                gzip = q;
+            else if (coding.equals("*"))
+                wildcard = q;
+        }
+        if (gzip != null)
+            return gzip > 0;
+        return wildcard != null && wildcard > 0;
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag))
+                return true;
+        }
+        return false;
+    }
 }
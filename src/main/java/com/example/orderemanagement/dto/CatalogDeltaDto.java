@@ -0,0 +1,44 @@
+package com.example.orderemanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One catalog change on the SSE feed. UPSERT carries the whole product, STOCK only the new
+ * stock level and DELETE only the id; fields that do not apply are omitted. {@code seq}
+ * orders the feed as a whole and is assigned when the delta is published; {@code version}
+ * orders the changes of one product, so a client applies a delta only if its version is
+ * higher than the one it holds for that product.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CatalogDeltaDto {
+    public enum Type { UPSERT, STOCK, DELETE }
+
+    private Long seq;
+    private long version;
+    private Type type;
+    private Long productId;
+    private String name;
+    private String description;
+    private Double price;
+    private Integer stockQuantity;
+
+    public static CatalogDeltaDto upsert(ProductResponseDto product) {
+        return new CatalogDeltaDto(null, 0, Type.UPSERT, product.getId(), product.getName(), product.getDescription(),
+                product.getPrice(), product.getStockQuantity());
+    }
+
+    public static CatalogDeltaDto stock(Long productId, int stockQuantity) {
+        return new CatalogDeltaDto(null, 0, Type.STOCK, productId, null, null, null, stockQuantity);
+    }
+
+    public static CatalogDeltaDto delete(Long productId) {
+        return new CatalogDeltaDto(null, 0, Type.DELETE, productId, null, null, null, null);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.orderemanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerSpendDto {
+    private Long customerId;
+    private double totalSpend;
+}
@@ -0,0 +1,14 @@
+package com.example.orderemanagement.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+@Data
+public class OrderResponseDto {
+    private Long id;
+    private Long customerId;
+    private Long productId;
+    private Integer quantity;
+    private LocalDateTime createdAt;
+}
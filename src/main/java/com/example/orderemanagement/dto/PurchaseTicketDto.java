@@ -0,0 +1,18 @@
+package com.example.orderemanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseTicketDto {
+    public enum Status { PENDING, COMPLETED, REJECTED }
+
+    private String ticketId;
+    private Status status;
+    private Long productId;
+    private Long orderId;
+    private String message;
+}
@@ -0,0 +1,15 @@
+package com.example.orderemanagement.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class StockAvailabilityRequestDto {
+    @Size(max = 200, message = "At most 200 product IDs per request")
+    private List<Long> productIds = new ArrayList<>();
+    @Size(max = 200, message = "At most 200 product names per request")
+    private List<String> productNames = new ArrayList<>();
+}
@@ -0,0 +1,13 @@
+package com.example.orderemanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopSellerDto {
+    private Long productId;
+    private long unitsSold;
+}
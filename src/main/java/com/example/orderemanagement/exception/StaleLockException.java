@@ -0,0 +1,7 @@
+package com.example.orderemanagement.exception;
+
+public class StaleLockException extends RuntimeException {
+    public StaleLockException(String message) {
+        super(message);
+    }
+}
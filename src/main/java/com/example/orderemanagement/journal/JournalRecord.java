@@ -0,0 +1,37 @@
+package com.example.orderemanagement.journal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One journaled order. On disk each record is {@code [int length][int crc32c][payload]} with a
+ * fixed 36-byte payload; a zero length marks the end of the written part of a segment. A
+ * record with quantity 0 cancels the earlier order with the same id, customer and product.
+ */
+public record JournalRecord(long orderId, long customerId, long productId, int quantity, long createdAtMillis) {
+    static final int PAYLOAD_SIZE = Long.BYTES * 4 + Integer.BYTES;
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+    static final int SIZE = HEADER_SIZE + PAYLOAD_SIZE;
+
+    public static JournalRecord cancellation(JournalRecord order) {
+        return new JournalRecord(order.orderId(), order.customerId(), order.productId(), 0, System.currentTimeMillis());
+    }
+
+    public boolean isCancellation() {
+        return quantity == 0;
+    }
+
+    byte[] toPayload() {
+        return ByteBuffer.allocate(PAYLOAD_SIZE)
+                .putLong(orderId)
+                .putLong(customerId)
+                .putLong(productId)
+                .putInt(quantity)
+                .putLong(createdAtMillis)
+                .array();
+    }
+
+    static JournalRecord fromPayload(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        return new JournalRecord(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getInt(), buffer.getLong());
+    }
+}
@@ -0,0 +1,448 @@
+package com.example.orderemanagement.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-node append-only order log on memory-mapped, fixed-size segment files. Appends are
+ * made durable by a single group-commit thread that forces all segments written since its
+ * last pass, so concurrent buyers share one fsync. {@link OrderJournalDrainer} copies
+ * durable records into {@code orders} and advances the checkpoint; segments entirely before
+ * the checkpoint are deleted.
+ */
+@Component
+@Slf4j
+public class OrderJournal {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String LOCK_FILE = "lock";
+    private static final long ID_EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    public record Position(long segment, int offset) {
+    }
+
+    public record Batch(List<JournalRecord> records, Position next) {
+    }
+
+    private static final class Segment {
+        private final long index;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        private Segment(long index, FileChannel channel, MappedByteBuffer buffer) {
+            this.index = index;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private record PendingCommit(Segment segment, Position end, CompletableFuture<Void> future) {
+    }
+
+    @Getter
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final long commitTimeoutMillis;
+    private final long nodeId;
+    private FileChannel lockChannel;
+
+    private final Object appendLock = new Object();
+    private final List<PendingCommit> pending = new ArrayList<>();
+    private volatile Segment active;
+    private volatile Position durable;
+    @Getter
+    private volatile Position checkpoint;
+    private volatile boolean running;
+    private Thread groupCommitThread;
+
+    private long lastIdMillis;
+    private long idSequence;
+
+    public OrderJournal(@Value("${orders.journal.enabled:false}") boolean enabled,
+                        @Value("${orders.journal.directory:./order-journal}") String directory,
+                        @Value("${orders.journal.segment-size-bytes:67108864}") int segmentSize,
+                        @Value("${orders.journal.commit-timeout-ms:1000}") long commitTimeoutMillis,
+                        @Value("${orders.journal.node-id:}") String nodeId) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSize - segmentSize % JournalRecord.SIZE;
+        this.commitTimeoutMillis = commitTimeoutMillis;
+        this.nodeId = enabled || !nodeId.isBlank() ? parseNodeId(nodeId) : 0;
+    }
+
+    // A default would give every instance the same id, and their orders would collide
+    private static long parseNodeId(String nodeId) {
+        if (nodeId.isBlank())
+            throw new IllegalStateException("orders.journal.node-id must be set when the order journal is enabled");
+        long id = Long.parseLong(nodeId.trim());
+        if (id < 0 || id > 0x3ff)
+            throw new IllegalStateException("orders.journal.node-id must be between 0 and 1023, was " + id);
+        return id;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled)
+            return;
+        Files.createDirectories(directory);
+        lockDirectory();
+        List<Long> segments = listSegments();
+        checkpoint = readCheckpoint(segments.isEmpty() ? 0 : segments.get(0));
+        active = openSegment(segments.isEmpty() ? checkpoint.segment() : segments.get(segments.size() - 1));
+        active.position = recoverEnd(active);
+        durable = new Position(active.index, active.position);
+        log.info("Order journal opened at {}, checkpoint {}, end {}", directory, checkpoint, durable);
+
+        running = true;
+        groupCommitThread = Thread.ofPlatform().name("order-journal-commit").daemon().start(this::groupCommitLoop);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!enabled || !running)
+            return;
+        running = false;
+        synchronized (appendLock) {
+            appendLock.notifyAll();
+        }
+        groupCommitThread.join(TimeUnit.SECONDS.toMillis(5));
+        synchronized (appendLock) {
+            active.buffer.force();
+        }
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("Could not release order journal directory {}", directory, e);
+        }
+    }
+
+    // Instances sharing a directory would interleave segments and checkpoints; the OS lock is
+    // released if the process dies
+    private void lockDirectory() throws IOException {
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // held by another journal in this JVM
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Order journal directory " + directory + " is in use by another instance");
+        }
+    }
+
+    /**
+     * Snowflake-style ID: milliseconds since 2024 | 10-bit node id | 12-bit sequence.
+     * Node ids must be unique across instances writing to the same orders table.
+     */
+    public synchronized long nextOrderId() {
+        long now = System.currentTimeMillis();
+        if (now <= lastIdMillis) {
+            idSequence = (idSequence + 1) & 0xfff;
+            if (idSequence == 0)
+                lastIdMillis++;
+            now = lastIdMillis;
+        } else {
+            idSequence = 0;
+            lastIdMillis = now;
+        }
+        return ((now - ID_EPOCH_MILLIS) << 22) | (nodeId << 12) | idSequence;
+    }
+
+    public CompletableFuture<Void> append(JournalRecord record) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        byte[] payload = record.toPayload();
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        synchronized (appendLock) {
+            if (!running)
+                throw new IllegalStateException("Order journal is closed");
+            if (active.position + JournalRecord.SIZE > segmentSize)
+                roll();
+            int position = active.position;
+            active.buffer.put(position + JournalRecord.HEADER_SIZE, payload);
+            active.buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+            active.buffer.putInt(position, JournalRecord.PAYLOAD_SIZE); // written last: marks the record complete
+            active.position += JournalRecord.SIZE;
+            pending.add(new PendingCommit(active, new Position(active.index, active.position), future));
+            appendLock.notifyAll();
+        }
+        return future;
+    }
+
+    public void appendDurably(JournalRecord record) {
+        try {
+            append(record).get(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while writing order journal", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new RuntimeException("Order journal write failed", e);
+        }
+    }
+
+    /**
+     * Writes the record as part of the current transaction's commit. All records of one
+     * transaction are appended together just before it commits and share a single durability
+     * wait; if that fails the transaction rolls back. Records of a transaction whose commit
+     * fails afterwards are cancelled, so the journal never keeps an order without its stock.
+     */
+    public void appendOnCommit(JournalRecord record) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            appendDurably(record);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<JournalRecord> records = (List<JournalRecord>) TransactionSynchronizationManager.getResource(this);
+        if (records == null) {
+            List<JournalRecord> transactionRecords = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, transactionRecords);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean written;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    appendAllDurably(transactionRecords);
+                    written = true;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OrderJournal.this);
+                    if (written && status == STATUS_ROLLED_BACK)
+                        cancel(transactionRecords);
+                }
+            });
+            records = transactionRecords;
+        }
+        records.add(record);
+    }
+
+    private void appendAllDurably(List<JournalRecord> records) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(records.size());
+        for (JournalRecord record : records)
+            futures.add(append(record));
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while writing order journal", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new RuntimeException("Order journal write failed", e);
+        }
+    }
+
+    private void cancel(List<JournalRecord> records) {
+        try {
+            appendAllDurably(records.stream().map(JournalRecord::cancellation).toList());
+        } catch (RuntimeException e) {
+            log.error("Could not cancel {} journaled orders of a rolled-back purchase: {}", records.size(),
+                    records.stream().map(JournalRecord::orderId).toList(), e);
+        }
+    }
+
+    /** Reads up to {@code max} durable records starting at {@code from}. */
+    public Batch read(Position from, int max) {
+        List<JournalRecord> records = new ArrayList<>();
+        Position durableEnd = durable;
+        long segment = from.segment();
+        int offset = from.offset();
+        try {
+            while (records.size() < max && segment <= durableEnd.segment()) {
+                ByteBuffer buffer = segmentForReading(segment);
+                int limit = segment == durableEnd.segment() ? durableEnd.offset() : segmentSize;
+                while (records.size() < max && offset + JournalRecord.SIZE <= limit) {
+                    JournalRecord record = readRecord(buffer, offset);
+                    if (record == null)
+                        break;
+                    records.add(record);
+                    offset += JournalRecord.SIZE;
+                }
+                if (records.size() >= max || segment == durableEnd.segment())
+                    break;
+                segment++;
+                offset = 0;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read order journal segment " + segment, e);
+        }
+        return new Batch(records, new Position(segment, offset));
+    }
+
+    /** Records that everything before {@code position} is applied and deletes fully applied segments. */
+    public void commitCheckpoint(Position position) {
+        try {
+            Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.allocate(Long.BYTES + Integer.BYTES)
+                        .putLong(position.segment()).putInt(position.offset()).flip());
+                channel.force(true);
+            }
+            Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpoint = position;
+            for (Long segment : listSegments())
+                if (segment < position.segment() && segment < active.index)
+                    Files.deleteIfExists(segmentPath(segment));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write order journal checkpoint", e);
+        }
+    }
+
+    private void groupCommitLoop() {
+        while (running || hasPending()) {
+            List<PendingCommit> batch;
+            synchronized (appendLock) {
+                while (running && pending.isEmpty()) {
+                    try {
+                        appendLock.wait(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                batch = new ArrayList<>(pending);
+                pending.clear();
+            }
+            if (batch.isEmpty())
+                continue;
+            try {
+                Set<Segment> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+                batch.forEach(commit -> touched.add(commit.segment()));
+                for (Segment segment : touched) {
+                    segment.buffer.force();
+                    if (segment != active)
+                        closeQuietly(segment); // rolled: nothing more will be appended to it
+                }
+                durable = batch.get(batch.size() - 1).end();
+                batch.forEach(commit -> commit.future().complete(null));
+            } catch (RuntimeException e) {
+                log.error("Order journal fsync failed", e);
+                batch.forEach(commit -> commit.future().completeExceptionally(e));
+            }
+        }
+    }
+
+    private static void closeQuietly(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            log.warn("Could not close order journal segment {}", segment.index, e);
+        }
+    }
+
+    private boolean hasPending() {
+        synchronized (appendLock) {
+            return !pending.isEmpty();
+        }
+    }
+
+    private void roll() {
+        try {
+            active = openSegment(active.index + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not roll order journal segment", e);
+        }
+    }
+
+    private Segment openSegment(long index) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        return new Segment(index, channel, buffer);
+    }
+
+    private ByteBuffer segmentForReading(long index) throws IOException {
+        Segment current = active;
+        if (current.index == index)
+            return current.buffer.duplicate();
+        try (FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), segmentSize));
+        }
+    }
+
+    private static JournalRecord readRecord(ByteBuffer buffer, int offset) {
+        if (offset + JournalRecord.SIZE > buffer.capacity())
+            return null;
+        int length = buffer.getInt(offset);
+        if (length != JournalRecord.PAYLOAD_SIZE)
+            return null;
+        byte[] payload = new byte[JournalRecord.PAYLOAD_SIZE];
+        buffer.get(offset + JournalRecord.HEADER_SIZE, payload);
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        if ((int) crc.getValue() != buffer.getInt(offset + Integer.BYTES))
+            return null;
+        return JournalRecord.fromPayload(payload);
+    }
+
+    // Finds the end of the valid records and clears a torn record left by a crash mid-append
+    private int recoverEnd(Segment segment) {
+        int offset = 0;
+        while (offset + JournalRecord.SIZE <= segmentSize && readRecord(segment.buffer, offset) != null)
+            offset += JournalRecord.SIZE;
+        if (offset + JournalRecord.SIZE <= segmentSize) {
+            segment.buffer.put(offset, new byte[JournalRecord.SIZE]);
+            segment.buffer.force();
+        }
+        return offset;
+    }
+
+    private Position readCheckpoint(long firstSegment) throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file))
+            return new Position(firstSegment, 0);
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        return new Position(buffer.getLong(), buffer.getInt());
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.orderemanagement.journal;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Copies durable journal records into {@code orders} in batches and then advances the
+ * journal checkpoint. Inserts skip orders already present and cancellations delete their
+ * order, so replaying from the checkpoint after a crash (records inserted but checkpoint
+ * not yet written) is harmless. A row with the same id but a different customer, product or
+ * quantity is another order, which means two nodes share a node id: draining stops there
+ * and the journal keeps the record rather than dropping it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderJournalDrainer {
+    private final OrderJournal journal;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${orders.journal.drain-batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${orders.journal.drain-interval-ms:200}")
+    public void drain() {
+        if (!journal.isEnabled())
+            return;
+        try {
+            OrderJournal.Batch batch;
+            do {
+                batch = journal.read(journal.getCheckpoint(), batchSize);
+                if (!batch.records().isEmpty())
+                    insertMissing(batch.records());
+                if (!batch.next().equals(journal.getCheckpoint()))
+                    journal.commitCheckpoint(batch.next());
+            } while (batch.records().size() == batchSize);
+        } catch (Exception e) {
+            log.error("Draining order journal failed, will retry", e);
+        }
+    }
+
+    private void insertMissing(List<JournalRecord> records) {
+        List<JournalRecord> cancellations = records.stream().filter(JournalRecord::isCancellation).toList();
+        Set<Long> cancelled = cancellations.stream().map(JournalRecord::orderId).collect(Collectors.toSet());
+        List<JournalRecord> orders = records.stream()
+                .filter(record -> !record.isCancellation() && !cancelled.contains(record.orderId()))
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            // Cancellations written before they carried customer and product match on id alone
+            if (!cancellations.isEmpty())
+                jdbcTemplate.batchUpdate("DELETE FROM orders WHERE id = :id AND (:customerId = 0 " +
+                        "OR (customer_id = :customerId AND product_id = :productId))",
+                        cancellations.stream().map(OrderJournalDrainer::parameters).toArray(MapSqlParameterSource[]::new));
+            if (orders.isEmpty())
+                return;
+            Map<Long, JournalRecord> stored = new HashMap<>();
+            jdbcTemplate.query("SELECT id, customer_id, product_id, quantity FROM orders WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", orders.stream().map(JournalRecord::orderId).toList()),
+                    (RowCallbackHandler) rs -> stored.put(rs.getLong("id"), new JournalRecord(rs.getLong("id"),
+                            rs.getLong("customer_id"), rs.getLong("product_id"), rs.getInt("quantity"), 0)));
+            for (JournalRecord record : orders) {
+                JournalRecord row = stored.get(record.orderId());
+                if (row != null && (row.customerId() != record.customerId()
+                        || row.productId() != record.productId() || row.quantity() != record.quantity()))
+                    throw new IllegalStateException("Journaled order " + record + " collides with stored order "
+                            + row + "; check that orders.journal.node-id is unique per instance");
+            }
+            Set<Long> existing = stored.keySet();
+            MapSqlParameterSource[] rows = orders.stream()
+                    .filter(record -> !existing.contains(record.orderId()))
+                    .map(record -> parameters(record)
+                            .addValue("quantity", record.quantity())
+                            .addValue("createdAt", new Timestamp(record.createdAtMillis())))
+                    .toArray(MapSqlParameterSource[]::new);
+            if (rows.length > 0)
+                jdbcTemplate.batchUpdate("INSERT INTO orders (id, customer_id, product_id, quantity, created_at) " +
+                        "VALUES (:id, :customerId, :productId, :quantity, :createdAt)", rows);
+            log.debug("Drained {} journaled orders ({} already present)", rows.length, existing.size());
+        });
+    }
+
+    private static MapSqlParameterSource parameters(JournalRecord record) {
+        return new MapSqlParameterSource()
+                .addValue("id", record.orderId())
+                .addValue("customerId", record.customerId())
+                .addValue("productId", record.productId());
+    }
+}
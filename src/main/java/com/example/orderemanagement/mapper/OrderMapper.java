@@ -1,6 +1,7 @@
 package com.example.orderemanagement.mapper;
 
 import com.example.orderemanagement.dto.BuyProductRequestDto;
+import com.example.orderemanagement.dto.OrderResponseDto;
 import com.example.orderemanagement.model.Customer;
 import com.example.orderemanagement.model.Order;
 import com.example.orderemanagement.model.Product;
@@ -13,4 +14,14 @@ public class OrderMapper {
         order.setQuantity(requestDto.getQuantity());
         return order;
     }
+
+    public static OrderResponseDto toResponseDto(Order order) {
+        OrderResponseDto responseDto = new OrderResponseDto();
+        responseDto.setId(order.getId());
+        responseDto.setCustomerId(order.getCustomer().getId());
+        responseDto.setProductId(order.getProduct().getId());
+        responseDto.setQuantity(order.getQuantity());
+        responseDto.setCreatedAt(order.getCreatedAt());
+        return responseDto;
+    }
 }
@@ -24,6 +24,10 @@ public class Inventory {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long productId;
     private Integer stockQuantity;
+    // Fencing token of the last leased-lock holder that updated the stock
+    private long fenceToken;
+    // Last inventory_movements id folded into stockQuantity (ledger mode)
+    private long ledgerPosition;
 
     @OneToOne
     @JoinColumn(name = "productId")
@@ -0,0 +1,67 @@
+package com.example.orderemanagement.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "inventory_movements", indexes = {
+        @Index(name = "idx_inventory_movements_product", columnList = "product_id, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryMovement {
+    public enum Type {
+        RESTOCK, SALE, ADJUSTMENT
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false, updatable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 16)
+    private Type type;
+
+    // Signed change in stock: negative for sales
+    @Column(nullable = false, updatable = false)
+    private int quantity;
+
+    @Column(name = "order_id", updatable = false)
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false, updatable = false,
+            columnDefinition = "datetime(6) not null default current_timestamp(6)")
+    private LocalDateTime createdAt;
+
+    public InventoryMovement(Long productId, Type type, int quantity, Long orderId) {
+        this.productId = productId;
+        this.type = type;
+        this.quantity = quantity;
+        this.orderId = orderId;
+    }
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null)
+            createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.orderemanagement.monitoring;
+
+/**
+ * Per-thread count of log events for the request between {@link #begin()} and {@link #end()}.
+ * {@link LogBudgetTurboFilter} draws from the active scope; outside a request nothing is
+ * limited.
+ */
+public final class LogBudget {
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private LogBudget() {
+    }
+
+    private static final class Scope {
+        private int used;
+        private int suppressed;
+    }
+
+    public static void begin() {
+        CURRENT.set(new Scope());
+    }
+
+    /** Ends the scope and returns how many events it suppressed. */
+    public static int end() {
+        Scope scope = CURRENT.get();
+        CURRENT.remove();
+        return scope == null ? 0 : scope.suppressed;
+    }
+
+    static boolean tryConsume(int maxEvents) {
+        Scope scope = CURRENT.get();
+        if (scope == null)
+            return true;
+        if (scope.used < maxEvents) {
+            scope.used++;
+            return true;
+        }
+        scope.suppressed++;
+        return false;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.orderemanagement.monitoring;
+
+import java.io.IOException;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Opens a {@link LogBudget} scope for each request and counts the events the budget
+ * suppressed as {@code logging.events.suppressed} per route.
+ */
+@Component
+public class LogBudgetFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+
+    public LogBudgetFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        LogBudget.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int suppressed = LogBudget.end();
+            if (suppressed > 0) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                meterRegistry.counter("logging.events.suppressed",
+                        "route", pattern == null ? "unmapped" : pattern.toString()).increment(suppressed);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.orderemanagement.monitoring;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Lets each request emit at most {@code maxEventsPerRequest} events below WARN; the rest
+ * are dropped before a logging event is even created. WARN and ERROR are never limited.
+ * Configured in logback-spring.xml.
+ */
+public class LogBudgetTurboFilter extends TurboFilter {
+    private int maxEventsPerRequest = 20;
+
+    public void setMaxEventsPerRequest(int maxEventsPerRequest) {
+        this.maxEventsPerRequest = maxEventsPerRequest;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format is null for isXxxEnabled() checks; only count events the logger would emit.
+        // getEffectiveLevel avoids Logger.isEnabledFor, which would re-enter the turbo filters
+        if (format == null || level.isGreaterOrEqual(Level.WARN) || !level.isGreaterOrEqual(logger.getEffectiveLevel()))
+            return FilterReply.NEUTRAL;
+        return LogBudget.tryConsume(maxEventsPerRequest) ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
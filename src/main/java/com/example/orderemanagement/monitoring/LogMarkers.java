@@ -0,0 +1,12 @@
+package com.example.orderemanagement.monitoring;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+public final class LogMarkers {
+    /** High-volume success events that production logging samples; see {@link SampledLogTurboFilter}. */
+    public static final Marker SAMPLED = MarkerFactory.getMarker("SAMPLED");
+
+    private LogMarkers() {
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.orderemanagement.monitoring;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Keeps only a {@code rate} fraction of events carrying {@link LogMarkers#SAMPLED} below
+ * WARN, such as the per-purchase success line. Configured in logback-spring.xml ahead of
+ * {@link LogBudgetTurboFilter} so dropped samples do not use up the request's budget.
+ */
+public class SampledLogTurboFilter extends TurboFilter {
+    private double rate = 0.01;
+
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (format == null || marker == null || !marker.contains(LogMarkers.SAMPLED) || level.isGreaterOrEqual(Level.WARN))
+            return FilterReply.NEUTRAL;
+        return ThreadLocalRandom.current().nextDouble() < rate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.orderemanagement.monitoring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Per-thread SQL counters for the unit of work between {@link #begin()} and {@link #end()}.
+ * Hibernate reports into the active scope through {@link SqlStatisticsInterceptor}; when no
+ * scope is open the hooks are a single ThreadLocal lookup.
+ */
+public final class SqlStatistics {
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    private SqlStatistics() {
+    }
+
+    @Getter
+    @ToString
+    public static final class Counts {
+        private int statements;
+        private int queries;
+        private int inserts;
+        private int updates;
+        private int deletes;
+        private int entityLoads;
+        private int flushes;
+        @ToString.Exclude
+        private final List<String> sql = new ArrayList<>();
+    }
+
+    public static void begin() {
+        CURRENT.set(new Counts());
+    }
+
+    public static Counts end() {
+        Counts counts = CURRENT.get();
+        CURRENT.remove();
+        return counts == null ? new Counts() : counts;
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static void recordStatement(String sql) {
+        Counts counts = CURRENT.get();
+        if (counts == null)
+            return;
+        counts.statements++;
+        counts.sql.add(sql);
+        String verb = sql.stripLeading().toLowerCase(Locale.ROOT);
+        if (verb.startsWith("select") || verb.startsWith("with"))
+            counts.queries++;
+        else if (verb.startsWith("insert"))
+            counts.inserts++;
+        else if (verb.startsWith("update"))
+            counts.updates++;
+        else if (verb.startsWith("delete"))
+            counts.deletes++;
+    }
+
+    static void recordEntityLoad() {
+        Counts counts = CURRENT.get();
+        if (counts != null)
+            counts.entityLoads++;
+    }
+
+    static void recordFlush() {
+        Counts counts = CURRENT.get();
+        if (counts != null)
+            counts.flushes++;
+    }
+}
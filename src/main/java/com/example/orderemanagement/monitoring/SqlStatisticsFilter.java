@@ -0,0 +1,60 @@
+package com.example.orderemanagement.monitoring;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records statements, entity loads and flushes for a sample of requests and exports them
+ * per route as {@code http.server.sql.*} distribution summaries.
+ */
+@Component
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+    private final double sampleRate;
+
+    public SqlStatisticsFilter(MeterRegistry meterRegistry,
+                               @Value("${sql-stats.sample-rate:0.01}") double sampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (SqlStatistics.isActive() || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        SqlStatistics.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatistics.Counts counts = SqlStatistics.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String route = pattern == null ? "unmapped" : pattern.toString();
+            record("http.server.sql.statements", route, request.getMethod(), counts.getStatements());
+            record("http.server.sql.entity.loads", route, request.getMethod(), counts.getEntityLoads());
+            record("http.server.sql.flushes", route, request.getMethod(), counts.getFlushes());
+        }
+    }
+
+    private void record(String name, String route, String method, int value) {
+        DistributionSummary.builder(name)
+                .tag("route", route)
+                .tag("method", method)
+                .register(meterRegistry)
+                .record(value);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.orderemanagement.monitoring;
+
+import java.util.Iterator;
+
+import org.hibernate.Interceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+public class SqlStatisticsInterceptor implements StatementInspector, Interceptor {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatistics.recordStatement(sql);
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        SqlStatistics.recordEntityLoad();
+        return false;
+    }
+
+    @Override
+    public void preFlush(Iterator<Object> entities) {
+        SqlStatistics.recordFlush();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.orderemanagement.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A catalog or stock read served by {@code ProductService}. */
+@Name("orderemanagement.CatalogRead")
+@Label("Catalog Read")
+@Category({ "Order Management", "Catalog" })
+@Description("Product listing, lookup by name or stock availability read")
+@StackTrace(false)
+public class CatalogReadEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Result Count")
+    public int resultCount;
+
+    public static CatalogReadEvent start(String operation) {
+        CatalogReadEvent event = new CatalogReadEvent();
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    public void finish(int resultCount) {
+        end();
+        if (shouldCommit()) {
+            this.resultCount = resultCount;
+            commit();
+        }
+    }
+}
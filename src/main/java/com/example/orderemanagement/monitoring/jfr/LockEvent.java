@@ -0,0 +1,35 @@
+package com.example.orderemanagement.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** One {@code DistributedLockService} critical section: the wait for the lock plus the time it was held. */
+@Name("orderemanagement.Lock")
+@Label("Product Lock")
+@Category({ "Order Management", "Locks" })
+@Description("Lock acquisition and hold time per lock key")
+@StackTrace(false)
+public class LockEvent extends Event {
+    @Label("Lock Key")
+    public String lockKey;
+
+    @Label("Lock Type")
+    @Description("redis, local or leased")
+    public String lockType;
+
+    @Label("Acquired")
+    public boolean acquired;
+
+    @Label("Wait Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long waitTime;
+
+    @Label("Hold Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long holdTime;
+}
@@ -0,0 +1,45 @@
+package com.example.orderemanagement.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A phase of {@code ProductService.buyProduct}; the event duration is the phase duration. */
+@Name("orderemanagement.PurchasePhase")
+@Label("Purchase Phase")
+@Category({ "Order Management", "Purchases" })
+@Description("resolve, inventory-lock or order-insert step of a purchase")
+@StackTrace(false)
+public class PurchasePhaseEvent extends Event {
+    public static final String RESOLVE = "resolve";
+    public static final String INVENTORY_LOCK = "inventory-lock";
+    public static final String ORDER_INSERT = "order-insert";
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Product ID")
+    public long productId;
+
+    @Label("Quantity")
+    public int quantity;
+
+    public static PurchasePhaseEvent start(String phase) {
+        PurchasePhaseEvent event = new PurchasePhaseEvent();
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    public void finish(long productId, int quantity) {
+        end();
+        if (shouldCommit()) {
+            this.productId = productId;
+            this.quantity = quantity;
+            commit();
+        }
+    }
+}
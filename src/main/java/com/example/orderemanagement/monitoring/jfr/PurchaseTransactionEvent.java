@@ -0,0 +1,38 @@
+package com.example.orderemanagement.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A whole purchase transaction, from entering {@code buyProduct} until commit or rollback completes. */
+@Name("orderemanagement.PurchaseTransaction")
+@Label("Purchase Transaction")
+@Category({ "Order Management", "Purchases" })
+@Description("Purchase transaction duration and outcome")
+@StackTrace(false)
+public class PurchaseTransactionEvent extends Event {
+    @Label("Product ID")
+    public long productId;
+
+    @Label("Outcome")
+    @Description("committed, rolled-back or unknown")
+    public String outcome;
+
+    public static PurchaseTransactionEvent start() {
+        PurchaseTransactionEvent event = new PurchaseTransactionEvent();
+        event.begin();
+        return event;
+    }
+
+    public void finish(long productId, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.productId = productId;
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.orderemanagement.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.orderemanagement.model.InventoryMovement;
+
+public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
+    @Query("SELECT COALESCE(SUM(m.quantity), 0) FROM InventoryMovement m " +
+           "WHERE m.productId = :productId AND m.id > :after AND m.id <= :upTo")
+    long sumBetween(@Param("productId") Long productId, @Param("after") long after, @Param("upTo") long upTo);
+
+    // Movements not yet folded into each product's snapshot row
+    @Query("SELECT m.productId AS productId, CAST(SUM(m.quantity) AS Integer) AS stockQuantity " +
+           "FROM InventoryMovement m, Inventory i " +
+           "WHERE i.product.id = m.productId AND m.id > i.ledgerPosition AND m.productId IN :ids " +
+           "GROUP BY m.productId")
+    List<ProductStockView> findPendingByProductIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT m.productId FROM InventoryMovement m, Inventory i " +
+           "WHERE i.product.id = m.productId AND m.id > i.ledgerPosition")
+    List<Long> findProductIdsWithPending();
+
+    @Query("SELECT COALESCE(MAX(m.id), 0) FROM InventoryMovement m WHERE m.productId = :productId")
+    long findLastIdByProductId(@Param("productId") Long productId);
+}
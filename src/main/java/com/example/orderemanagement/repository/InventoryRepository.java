@@ -1,5 +1,7 @@
 package com.example.orderemanagement.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -15,7 +17,35 @@ import jakarta.persistence.LockModeType;
 public interface InventoryRepository extends JpaRepository<Inventory, Long>{
     Optional<Inventory> findByProduct(Product product);
     
+    @Query("SELECT i FROM Inventory i JOIN FETCH i.product p ORDER BY p.id")
+    List<Inventory> findAllWithProduct();
+
+    @Query("SELECT i FROM Inventory i JOIN FETCH i.product p WHERE p.id IN :ids")
+    List<Inventory> findWithProductByProductIds(@Param("ids") Collection<Long> ids);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT i FROM Inventory i WHERE i.product = :product")
     Optional<Inventory> findByProductWithLock(@Param("product") Product product);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.product.id = :productId")
+    Optional<Inventory> findByProductIdWithLock(@Param("productId") Long productId);
+
+    // Shared: ledger writers of one product run concurrently but exclude the compactor
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT i FROM Inventory i WHERE i.product.id = :productId")
+    Optional<Inventory> findByProductIdForShare(@Param("productId") Long productId);
+
+    @Query("SELECT i.product.id AS productId, i.stockQuantity AS stockQuantity FROM Inventory i " +
+           "WHERE i.product.id IN :ids")
+    List<ProductStockView> findStockByProductIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id AS productId, i.stockQuantity AS stockQuantity FROM Inventory i JOIN i.product p " +
+           "WHERE p.name IN :names")
+    List<ProductStockView> findStockByProductNames(@Param("names") Collection<String> names);
+
+    @Query("SELECT p.id AS productId, i.stockQuantity AS stockQuantity FROM Inventory i JOIN i.product p " +
+           "WHERE p.id IN :ids OR p.name IN :names")
+    List<ProductStockView> findStockByProductIdsOrNames(@Param("ids") Collection<Long> ids,
+                                                        @Param("names") Collection<String> names);
 }
@@ -1,5 +1,6 @@
 package com.example.orderemanagement.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,4 +10,6 @@ import com.example.orderemanagement.model.Order;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByCustomer(Customer customer);
+
+    List<Order> findByCustomerIdAndCreatedAtGreaterThanEqualOrderByCreatedAtDesc(Long customerId, LocalDateTime since);
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package com.example.orderemanagement.repository;
+
+public interface ProductStockView {
+    Long getProductId();
+    Integer getStockQuantity();
+}
@@ -1,8 +1,12 @@
 package com.example.orderemanagement.service;
 
 import com.example.orderemanagement.model.Admin;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import com.example.orderemanagement.dto.AdminLoginRequestDto;
@@ -11,33 +15,42 @@ import com.example.orderemanagement.dto.AdminResponseDto;
 import com.example.orderemanagement.mapper.AdminMapper;
 import com.example.orderemanagement.repository.AdminRepository;
 
-import lombok.RequiredArgsConstructor;
-
 @Service
-@RequiredArgsConstructor
 public class AdminService {
     private final AdminRepository adminRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final AsyncTaskExecutor taskExecutor;
     @Value("${admin.registration-secret}")
     private String expectedSecret;
 
-    public AdminResponseDto register(AdminRequestDto requestDto) {
+    public AdminService(AdminRepository adminRepository,
+                        PasswordHashingService passwordHashingService,
+                        @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor) {
+        this.adminRepository = adminRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.taskExecutor = taskExecutor;
+    }
+
+    public CompletableFuture<AdminResponseDto> register(AdminRequestDto requestDto) {
         if(adminRepository.findByEmail(requestDto.getEmail()).isPresent())
             throw new RuntimeException("Email already in use");
         if (!requestDto.getAdminSecret().equals(expectedSecret)) 
                 throw new RuntimeException("Invalid admin secret key");
         Admin admin = AdminMapper.toEntity(requestDto);
-        admin.setPassword(passwordEncoder.encode(admin.getPassword()));
-        return AdminMapper.toResponseDto(adminRepository.save(admin));
+        return passwordHashingService.encode(admin.getPassword()).thenApplyAsync(encoded -> {
+            admin.setPassword(encoded);
+            return AdminMapper.toResponseDto(adminRepository.save(admin));
+        }, taskExecutor);
     }
 
-    public AdminResponseDto login(AdminLoginRequestDto requestDto) {
+    public CompletableFuture<AdminResponseDto> login(AdminLoginRequestDto requestDto) {
         Admin admin = adminRepository.findByEmail(requestDto.getEmail())
                             .orElseThrow(() -> new RuntimeException("Invalid email or password"));
 
-        if(!passwordEncoder.matches(requestDto.getPassword(), admin.getPassword()))
-            throw new RuntimeException("Invalid email or password");
-
-        return AdminMapper.toResponseDto(admin);
+        return passwordHashingService.matches(requestDto.getPassword(), admin.getPassword()).thenApply(matches -> {
+            if (!matches)
+                throw new RuntimeException("Invalid email or password");
+            return AdminMapper.toResponseDto(admin);
+        });
     }
 }
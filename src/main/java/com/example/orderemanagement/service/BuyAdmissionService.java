@@ -0,0 +1,91 @@
+package com.example.orderemanagement.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.example.orderemanagement.exception.LoadSheddingException;
+import com.example.orderemanagement.exception.LockTimeoutException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounds how many buy requests may wait on a single product's lock. Requests beyond
+ * {@code buy.admission.max-queue-depth} are rejected immediately instead of parking a
+ * request thread for the full lock timeout, and admitted requests only wait up to
+ * {@code buy.admission.deadline-ms} for the lock.
+ */
+@Service
+@Slf4j
+public class BuyAdmissionService {
+    private final Map<Long, AtomicInteger> queueDepths = new ConcurrentHashMap<>();
+    private final AtomicInteger totalQueued = new AtomicInteger();
+    private final Counter queueFullCounter;
+    private final Counter deadlineCounter;
+    private final int maxQueueDepth;
+    @Getter
+    private final long deadlineMillis;
+    private final long retryAfterSeconds;
+    private final HttpStatus shedStatus;
+
+    public BuyAdmissionService(MeterRegistry meterRegistry,
+                               @Value("${buy.admission.max-queue-depth:32}") int maxQueueDepth,
+                               @Value("${buy.admission.deadline-ms:2000}") long deadlineMillis,
+                               @Value("${buy.admission.retry-after-seconds:1}") long retryAfterSeconds,
+                               @Value("${buy.admission.shed-status:503}") int shedStatus) {
+        this.maxQueueDepth = maxQueueDepth;
+        this.deadlineMillis = deadlineMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.shedStatus = HttpStatus.valueOf(shedStatus);
+        this.queueFullCounter = Counter.builder("buy.admission.shed")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.deadlineCounter = Counter.builder("buy.admission.shed")
+                .tag("reason", "deadline")
+                .register(meterRegistry);
+        Gauge.builder("buy.admission.queue.depth", totalQueued, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    public <T> T executeAdmitted(Long productId, Supplier<T> task) {
+        int[] position = new int[1];
+        queueDepths.compute(productId, (id, depth) -> {
+            AtomicInteger counter = depth != null ? depth : new AtomicInteger();
+            position[0] = counter.incrementAndGet();
+            return counter;
+        });
+        if (position[0] > maxQueueDepth) {
+            release(productId);
+            queueFullCounter.increment();
+            log.warn("Shedding buy for product {}: queue depth limit {} reached", productId, maxQueueDepth);
+            throw new LoadSheddingException("Too many pending purchases for this product, retry later",
+                    shedStatus, retryAfterSeconds);
+        }
+        totalQueued.incrementAndGet();
+        try {
+            return task.get();
+        } catch (LockTimeoutException e) {
+            deadlineCounter.increment();
+            log.warn("Shedding buy for product {}: lock not acquired within {} ms", productId, deadlineMillis);
+            throw new LoadSheddingException("Purchase could not be processed in time, retry later",
+                    shedStatus, retryAfterSeconds);
+        } finally {
+            release(productId);
+            totalQueued.decrementAndGet();
+        }
+    }
+
+    // Idle products are removed so the map only holds products with purchases in flight
+    private void release(Long productId) {
+        queueDepths.computeIfPresent(productId, (id, depth) -> depth.decrementAndGet() == 0 ? null : depth);
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.orderemanagement.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.orderemanagement.dto.CatalogDeltaDto;
+import com.example.orderemanagement.dto.ProductResponseDto;
+import com.example.orderemanagement.mapper.InventoryMapper;
+import com.example.orderemanagement.mapper.ProductMapper;
+import com.example.orderemanagement.repository.InventoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Server-Sent Events feed of catalog changes for clients that keep a local replica.
+ * <p>
+ * Writers take a per-product version from Redis before commit, at the point where changes
+ * to that product are already serialized: under the inventory row lock, or in ledger mode
+ * together with the running balance. After commit, {@code feed-append.lua} numbers the
+ * delta, appends it to a bounded log and publishes it on {@code catalog:feed} in one step,
+ * so the log and the channel agree on the order. Every instance forwards deltas to its own
+ * subscribers through a bounded queue per subscriber; a client that falls that far behind is
+ * disconnected and resumes from the log. A client resuming with {@code Last-Event-ID} gets
+ * the deltas it missed from the log, or a fresh snapshot when the log no longer reaches back
+ * that far.
+ */
+@Service
+@Slf4j
+public class CatalogFeedService {
+    private static final String SEQUENCE_KEY = "catalog:feed:seq";
+    private static final String LOG_KEY = "catalog:feed:log";
+    private static final String FLOOR_KEY = "catalog:feed:floor";
+    private static final String VERSIONS_KEY = "catalog:feed:versions";
+    private static final String APPENDED_VERSIONS_KEY = "catalog:feed:appended";
+    private static final String CHANNEL = "catalog:feed";
+    private static final RedisScript<Long> APPEND = RedisScript.of(new ClassPathResource("scripts/feed-append.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> VERSION = RedisScript.of(new ClassPathResource("scripts/feed-version.lua"), List.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final InventoryRepository inventoryRepository;
+    private final InventoryLedgerService inventoryLedgerService;
+    private final ObjectMapper objectMapper;
+    private final Counter droppedCounter;
+    private final boolean enabled;
+    private final int retain;
+    private final long emitterTimeoutMillis;
+    private final int subscriberBuffer;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // A slow client ties up one sender at most until its queue overflows and it is dropped
+    private final ExecutorService senders;
+
+    public CatalogFeedService(RedisTemplate<String, String> redisTemplate,
+                              RedisMessageListenerContainer listenerContainer,
+                              InventoryRepository inventoryRepository,
+                              InventoryLedgerService inventoryLedgerService,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${catalog.feed.enabled:true}") boolean enabled,
+                              @Value("${catalog.feed.retain:10000}") int retain,
+                              @Value("${catalog.feed.emitter-timeout-ms:600000}") long emitterTimeoutMillis,
+                              @Value("${catalog.feed.subscriber-buffer:256}") int subscriberBuffer,
+                              @Value("${catalog.feed.senders:4}") int senderCount) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryLedgerService = inventoryLedgerService;
+        this.objectMapper = objectMapper;
+        this.droppedCounter = Counter.builder("catalog.feed.dropped").register(meterRegistry);
+        this.enabled = enabled;
+        this.retain = retain;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.subscriberBuffer = subscriberBuffer;
+        this.senders = Executors.newFixedThreadPool(senderCount, Thread.ofPlatform().name("catalog-feed-", 0).daemon().factory());
+        Gauge.builder("catalog.feed.subscribers", subscribers, Set::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (!enabled)
+            return;
+        listenerContainer.addMessageListener((message, pattern) ->
+                deliver(new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(CHANNEL));
+    }
+
+    @PreDestroy
+    public void close() {
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Versions the delta now and publishes it once the current transaction commits. Callers
+     * hold the product's inventory row lock, or run in ledger mode where the stock level is
+     * taken from the running balance, so versions follow the order of the changes.
+     */
+    public void record(CatalogDeltaDto delta) {
+        if (!enabled)
+            return;
+        try {
+            List<String> keys = inventoryLedgerService.isEnabled()
+                    ? List.of(VERSIONS_KEY, InventoryLedgerService.balanceKey(delta.getProductId()))
+                    : List.of(VERSIONS_KEY);
+            List<?> result = redisTemplate.execute(VERSION, keys, String.valueOf(delta.getProductId()));
+            delta.setVersion(((Number) result.get(0)).longValue());
+            if (result.size() > 1 && delta.getStockQuantity() != null)
+                delta.setStockQuantity(((Number) result.get(1)).intValue());
+        } catch (Exception e) {
+            // The change itself must not fail; replicas pick it up from their next snapshot
+            log.warn("Could not version catalog delta for product {}", delta.getProductId(), e);
+            return;
+        }
+        afterCommit(() -> append(delta));
+    }
+
+    public SseEmitter open(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> {
+            subscribers.remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> subscribers.remove(subscriber));
+        // Registered before catching up so nothing published meanwhile is missed
+        subscribers.add(subscriber);
+        try {
+            subscriber.catchUp(lastEventId);
+        } catch (Exception e) {
+            subscribers.remove(subscriber);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.feed.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.offer(Outgoing.KEEP_ALIVE));
+    }
+
+    private void append(CatalogDeltaDto delta) {
+        try {
+            redisTemplate.execute(APPEND, List.of(LOG_KEY, FLOOR_KEY, SEQUENCE_KEY, APPENDED_VERSIONS_KEY),
+                    objectMapper.writeValueAsString(delta), String.valueOf(retain), CHANNEL,
+                    String.valueOf(delta.getProductId()), String.valueOf(delta.getVersion()));
+        } catch (Exception e) {
+            log.warn("Could not publish catalog delta for product {} version {}", delta.getProductId(), delta.getVersion(), e);
+        }
+    }
+
+    // Runs on the Redis listener thread, so it only parses and enqueues
+    private void deliver(String json) {
+        long seq;
+        try {
+            seq = objectMapper.readTree(json).get("seq").asLong();
+        } catch (IOException e) {
+            log.warn("Ignoring malformed catalog delta {}", json, e);
+            return;
+        }
+        Outgoing delta = new Outgoing(seq, json);
+        subscribers.forEach(subscriber -> subscriber.offer(delta));
+    }
+
+    private long readLong(String key) {
+        String value = redisTemplate.opsForValue().get(key);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Outgoing(long seq, String json) {
+        static final Outgoing KEEP_ALIVE = new Outgoing(-1, null);
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Outgoing> queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // Deltas at or below the baseline are covered by the snapshot or the replayed log
+        private volatile long baseline;
+        private volatile boolean live;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void catchUp(Long lastEventId) throws IOException {
+            long current = readLong(SEQUENCE_KEY);
+            long floor = readLong(FLOOR_KEY);
+            // A counter below the client's position means Redis was reset; start over
+            if (lastEventId != null && lastEventId >= floor && lastEventId <= current) {
+                long last = lastEventId;
+                Set<String> backlog = redisTemplate.opsForZSet().rangeByScore(LOG_KEY, lastEventId + 1, Double.POSITIVE_INFINITY);
+                if (backlog != null) {
+                    for (String json : backlog) {
+                        last = objectMapper.readTree(json).get("seq").asLong();
+                        send(last, "delta", json);
+                    }
+                }
+                goLive(last);
+            } else {
+                // Versions of appended deltas are read before the sequence and the rows: every
+                // delta numbered up to the sequence committed before the rows were read, and a
+                // version here never exceeds that of the row data sent with it
+                Map<String, String> appended = redisTemplate.<String, String>opsForHash().entries(APPENDED_VERSIONS_KEY);
+                long seq = readLong(SEQUENCE_KEY);
+                List<ProductResponseDto> products = inventoryRepository.findAllWithProduct().stream()
+                        .map(inventory -> InventoryMapper.toResponseDto(inventory, ProductMapper.toResponseDto(inventory.getProduct())))
+                        .toList();
+                inventoryLedgerService.addPending(products);
+                Map<String, Long> versions = new HashMap<>();
+                for (ProductResponseDto product : products) {
+                    String id = String.valueOf(product.getId());
+                    versions.put(id, Long.parseLong(appended.getOrDefault(id, "0")));
+                }
+                send(seq, "snapshot", objectMapper.writeValueAsString(Map.of("seq", seq, "products", products, "versions", versions)));
+                goLive(seq);
+            }
+        }
+
+        void offer(Outgoing outgoing) {
+            if (!queue.offer(outgoing)) {
+                droppedCounter.increment();
+                drop(new IllegalStateException("Catalog feed subscriber fell " + subscriberBuffer + " events behind"));
+                return;
+            }
+            schedule();
+        }
+
+        private void goLive(long baseline) {
+            this.baseline = baseline;
+            live = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (!live || !scheduled.compareAndSet(false, true))
+                return;
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+
+        private void drain() {
+            List<Outgoing> batch = new ArrayList<>();
+            queue.drainTo(batch);
+            try {
+                for (Outgoing outgoing : batch) {
+                    if (outgoing.json() == null)
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    else if (outgoing.seq() > baseline)
+                        send(outgoing.seq(), "delta", outgoing.json());
+                }
+            } catch (IOException | IllegalStateException e) {
+                drop(e);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            if (!queue.isEmpty())
+                schedule();
+        }
+
+        private void send(long seq, String name, String json) throws IOException {
+            emitter.send(SseEmitter.event().id(String.valueOf(seq)).name(name).data(json, MediaType.APPLICATION_JSON));
+        }
+
+        private void drop(Exception e) {
+            if (subscribers.remove(this))
+                emitter.completeWithError(e);
+        }
+    }
+}
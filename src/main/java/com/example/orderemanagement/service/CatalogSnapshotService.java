@@ -0,0 +1,307 @@
+package com.example.orderemanagement.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.orderemanagement.config.ContentNegotiationConfig;
+import com.example.orderemanagement.dto.ProductResponseDto;
+import com.example.orderemanagement.mapper.InventoryMapper;
+import com.example.orderemanagement.mapper.ProductMapper;
+import com.example.orderemanagement.model.Inventory;
+import com.example.orderemanagement.repository.InventoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves the product catalog from an immutable, pre-encoded snapshot. Each product's JSON is
+ * kept as its own fragment; committed changes (here or, via Redis pub/sub, on other nodes)
+ * mark products dirty, and a periodic refresh re-reads only those rows, swaps their
+ * fragments and re-assembles the plain and gzipped bodies. Fragments are kept in every
+ * {@link Format}; CBOR and Smile arrays need no length prefix, so their bodies are
+ * assembled the same way as JSON. Each body's ETag is a hash of its content, so every node
+ * serving the same catalog hands out the same tag.
+ */
+@Service
+@Slf4j
+public class CatalogSnapshotService {
+    private static final String CHANNEL = "catalog:changed";
+
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON),
+        CBOR(MediaType.APPLICATION_CBOR),
+        SMILE(ContentNegotiationConfig.APPLICATION_SMILE);
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType mediaType() {
+            return mediaType;
+        }
+
+        // Highest-quality acceptable format; JSON when the header is missing, malformed or wildcard
+        public static Format negotiate(String accept) {
+            if (accept == null || accept.isBlank())
+                return JSON;
+            try {
+                return MediaType.parseMediaTypes(accept).stream()
+                        .filter(type -> type.getQualityValue() > 0)
+                        .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+                        .flatMap(type -> Arrays.stream(values()).filter(format -> type.includes(format.mediaType)))
+                        .findFirst()
+                        .orElse(JSON);
+            } catch (InvalidMediaTypeException e) {
+                return JSON;
+            }
+        }
+    }
+
+    // Each representation has its own strong tag, so a cache never answers one with the other's bytes
+    public record Body(byte[] bytes, byte[] gzip, String etag, String gzipEtag) {
+    }
+
+    public record Snapshot(long version, NavigableMap<Long, Map<Format, byte[]>> fragments, Map<Format, Body> bodies) {
+        public Body body(Format format) {
+            return bodies.get(format);
+        }
+    }
+
+    // Per-format array framing around the concatenated fragments
+    private record Encoder(ObjectWriter writer, byte[] prefix, byte[] separator, byte[] suffix) {
+    }
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryLedgerService inventoryLedgerService;
+    private final Map<Format, Encoder> encoders = new EnumMap<>(Format.class);
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Set<Long> localChanges = ConcurrentHashMap.newKeySet();
+    private final Set<Long> remoteChanges = ConcurrentHashMap.newKeySet();
+    private volatile Snapshot snapshot;
+
+    public CatalogSnapshotService(InventoryRepository inventoryRepository,
+                                  InventoryLedgerService inventoryLedgerService,
+                                  ObjectMapper objectMapper,
+                                  MappingJackson2CborHttpMessageConverter cborConverter,
+                                  MappingJackson2SmileHttpMessageConverter smileConverter,
+                                  RedisTemplate<String, String> redisTemplate,
+                                  RedisMessageListenerContainer listenerContainer,
+                                  MeterRegistry meterRegistry) {
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryLedgerService = inventoryLedgerService;
+        encoders.put(Format.JSON, new Encoder(objectMapper.writer(),
+                new byte[] { '[' }, new byte[] { ',' }, new byte[] { ']' }));
+        // Indefinite-length CBOR array: start marker, self-contained items, break marker
+        encoders.put(Format.CBOR, new Encoder(cborConverter.getObjectMapper().writer(),
+                new byte[] { (byte) 0x9F }, new byte[0], new byte[] { (byte) 0xFF }));
+        // Fragments encoded separately must not back-reference names shared across the document
+        ObjectWriter smile = smileConverter.getObjectMapper().writer().without(SmileGenerator.Feature.CHECK_SHARED_NAMES);
+        byte[] emptySmileArray = writeBytes(smile, List.of());
+        encoders.put(Format.SMILE, new Encoder(smile.without(SmileGenerator.Feature.WRITE_HEADER),
+                Arrays.copyOf(emptySmileArray, emptySmileArray.length - 1), new byte[0],
+                new byte[] { emptySmileArray[emptySmileArray.length - 1] }));
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":", 2);
+            if (parts.length < 2 || parts[0].equals(nodeId) || parts[1].isEmpty())
+                return;
+            Arrays.stream(parts[1].split(",")).map(Long::valueOf).forEach(remoteChanges::add);
+        }, new ChannelTopic(CHANNEL));
+    }
+
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        return current != null ? current : load();
+    }
+
+    // Requests queued behind a cold-start load reuse its result instead of scanning again
+    private synchronized Snapshot load() {
+        Snapshot current = snapshot;
+        return current != null ? current : rebuildAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        localChanges.add(event.productId());
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.snapshot.refresh-interval-ms:200}")
+    public void refresh() {
+        Set<Long> local = drain(localChanges);
+        if (!local.isEmpty())
+            announce(local);
+        if (snapshot == null)
+            return;
+        Set<Long> changed = new HashSet<>(local);
+        changed.addAll(drain(remoteChanges));
+        if (!changed.isEmpty())
+            rebuild(changed);
+    }
+
+    // Safety net for changes whose notification was lost (Redis outage, missed pub/sub message)
+    @Scheduled(fixedDelayString = "${catalog.snapshot.full-rebuild-interval-ms:60000}")
+    public void periodicRebuild() {
+        if (snapshot != null)
+            rebuildAll();
+    }
+
+    private synchronized Snapshot rebuildAll() {
+        NavigableMap<Long, Map<Format, byte[]>> fragments = new TreeMap<>();
+        List<Inventory> rows = inventoryRepository.findAllWithProduct();
+        Map<Long, Integer> pending = inventoryLedgerService.pending(
+                rows.stream().map(inventory -> inventory.getProduct().getId()).toList());
+        for (Inventory inventory : rows)
+            fragments.put(inventory.getProduct().getId(), encode(inventory, pending));
+        meterRegistry.counter("catalog.snapshot.rebuilds", "type", "full").increment();
+        return publish(fragments);
+    }
+
+    private synchronized void rebuild(Set<Long> productIds) {
+        NavigableMap<Long, Map<Format, byte[]>> fragments = new TreeMap<>(snapshot.fragments());
+        Map<Long, Inventory> rows = inventoryRepository.findWithProductByProductIds(productIds).stream()
+                .collect(Collectors.toMap(inventory -> inventory.getProduct().getId(), inventory -> inventory));
+        Map<Long, Integer> pending = inventoryLedgerService.pending(rows.keySet());
+        for (Long productId : productIds) {
+            Inventory inventory = rows.get(productId);
+            if (inventory == null)
+                fragments.remove(productId);
+            else
+                fragments.put(productId, encode(inventory, pending));
+        }
+        meterRegistry.counter("catalog.snapshot.rebuilds", "type", "incremental").increment();
+        publish(fragments);
+    }
+
+    private Snapshot publish(NavigableMap<Long, Map<Format, byte[]>> fragments) {
+        Map<Format, Body> bodies = new EnumMap<>(Format.class);
+        for (Format format : Format.values()) {
+            byte[] bytes = assemble(format, fragments);
+            String etag = etag(bytes);
+            bodies.put(format, new Body(bytes, gzip(bytes), etag, etag.replaceFirst("\"$", "-gz\"")));
+        }
+        Snapshot previous = snapshot;
+        Snapshot next = new Snapshot(previous == null ? 1 : previous.version() + 1,
+                Collections.unmodifiableNavigableMap(fragments), Collections.unmodifiableMap(bodies));
+        snapshot = next;
+        return next;
+    }
+
+    private byte[] assemble(Format format, NavigableMap<Long, Map<Format, byte[]>> fragments) {
+        Encoder encoder = encoders.get(format);
+        int size = encoder.prefix().length + encoder.suffix().length
+                + Math.max(0, fragments.size() - 1) * encoder.separator().length;
+        for (Map<Format, byte[]> fragment : fragments.values())
+            size += fragment.get(format).length;
+        ByteArrayOutputStream body = new ByteArrayOutputStream(size);
+        body.writeBytes(encoder.prefix());
+        boolean first = true;
+        for (Map<Format, byte[]> fragment : fragments.values()) {
+            if (!first)
+                body.writeBytes(encoder.separator());
+            body.writeBytes(fragment.get(format));
+            first = false;
+        }
+        body.writeBytes(encoder.suffix());
+        return body.toByteArray();
+    }
+
+    // Ledger mode: movements not yet folded into the row count towards the stock shown
+    private Map<Format, byte[]> encode(Inventory inventory, Map<Long, Integer> pending) {
+        ProductResponseDto product = InventoryMapper.toResponseDto(inventory, ProductMapper.toResponseDto(inventory.getProduct()));
+        product.setStockQuantity(product.getStockQuantity() + pending.getOrDefault(product.getId(), 0));
+        Map<Format, byte[]> fragment = new EnumMap<>(Format.class);
+        encoders.forEach((format, encoder) -> fragment.put(format, writeBytes(encoder.writer(), product)));
+        return fragment;
+    }
+
+    private static byte[] writeBytes(ObjectWriter writer, Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode catalog entry " + value, e);
+        }
+    }
+
+    private void announce(Set<Long> productIds) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId + ":" +
+                    productIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        } catch (Exception e) {
+            log.warn("Could not announce catalog changes to other nodes", e);
+        }
+    }
+
+    private static Set<Long> drain(Set<Long> source) {
+        Set<Long> drained = new HashSet<>();
+        for (Long id : List.copyOf(source)) {
+            source.remove(id);
+            drained.add(id);
+        }
+        return drained;
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -6,34 +6,60 @@ import com.example.orderemanagement.dto.CustomerResponseDto;
 import com.example.orderemanagement.mapper.CustomerMapper;
 import com.example.orderemanagement.model.Customer;
 import com.example.orderemanagement.repository.CustomerRepository;
-import lombok.RequiredArgsConstructor;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 @Service
-@RequiredArgsConstructor
 public class CustomerService {
     private final CustomerRepository customerRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final AsyncTaskExecutor taskExecutor;
+
+    public CustomerService(CustomerRepository customerRepository,
+                           PasswordHashingService passwordHashingService,
+                           RegisteredEmailFilter registeredEmailFilter,
+                           @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor) {
+        this.customerRepository = customerRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.registeredEmailFilter = registeredEmailFilter;
+        this.taskExecutor = taskExecutor;
+    }
 
-    public CustomerResponseDto registerCustomer(CustomerRequestDto requestDto) {
-        if(customerRepository.findByEmail(requestDto.getEmail()).isPresent())
+    public CompletableFuture<CustomerResponseDto> registerCustomer(CustomerRequestDto requestDto) {
+        if (registeredEmailFilter.mightContain(requestDto.getEmail())
+                && customerRepository.findByEmail(requestDto.getEmail()).isPresent())
             throw new RuntimeException("Email already in use");
         Customer customer = CustomerMapper.toEntity(requestDto);
-        customer.setPassword(passwordEncoder.encode(customer.getPassword()));
-        return CustomerMapper.toResponseDto(customerRepository.save(customer));
+        // The hashing pool is sized for BCrypt only; the insert runs on the application task executor
+        return passwordHashingService.encode(customer.getPassword()).thenApplyAsync(encoded -> {
+            customer.setPassword(encoded);
+            Customer saved;
+            try {
+                saved = customerRepository.save(customer);
+            } catch (DataIntegrityViolationException e) {
+                // Registered concurrently or through another node since the filter was loaded
+                throw new RuntimeException("Email already in use");
+            }
+            registeredEmailFilter.add(saved.getEmail());
+            return CustomerMapper.toResponseDto(saved);
+        }, taskExecutor);
     }
 
-    public CustomerResponseDto loginCustomer(CustomerLoginRequestDto requestDto) {
+    public CompletableFuture<CustomerResponseDto> loginCustomer(CustomerLoginRequestDto requestDto) {
         Customer customer = customerRepository.findByEmail(requestDto.getEmail())
                             .orElseThrow(() -> new RuntimeException("Invalid email or password"));
 
-        if(!passwordEncoder.matches(requestDto.getPassword(), customer.getPassword())) {
-            throw new RuntimeException("Invalid email or password");
-        }
-
-        return CustomerMapper.toResponseDto(customer);
+        return passwordHashingService.matches(requestDto.getPassword(), customer.getPassword()).thenApply(matches -> {
+            if (!matches)
+                throw new RuntimeException("Invalid email or password");
+            return CustomerMapper.toResponseDto(customer);
+        });
     }
 
     public CustomerResponseDto getCustomerById(Long id) {
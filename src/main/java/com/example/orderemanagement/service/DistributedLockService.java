@@ -3,11 +3,18 @@ package com.example.orderemanagement.service;
 import org.springframework.integration.redis.util.RedisLockRegistry;
 import org.springframework.stereotype.Service;
 
+import com.example.orderemanagement.exception.LockTimeoutException;
+import com.example.orderemanagement.monitoring.jfr.LockEvent;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 @Service
@@ -15,26 +22,81 @@ import java.util.function.Supplier;
 @Slf4j
 public class DistributedLockService {
     private final RedisLockRegistry redisLockRegistry;
+    private final LeasedLockRegistry leasedLockRegistry;
+    private final Map<String, Lock> localLocks = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Long> FENCING_TOKEN = new ThreadLocal<>();
     private static final long DEFAULT_TIMEOUT_SECONDS = 10;
 
     public <T> T executeWithLock(String lockKey, Supplier<T> task) {
-        Lock lock = redisLockRegistry.obtain(lockKey);
+        return executeWithLock(lockKey, DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS, task);
+    }
+
+    public <T> T executeWithLock(String lockKey, long timeout, TimeUnit unit, Supplier<T> task) {
+        if (leasedLockRegistry.isEnabled())
+            return execute(leasedLockRegistry.obtain(lockKey), "leased", lockKey, timeout, unit, task);
+        return execute(redisLockRegistry.obtain(lockKey), "redis", lockKey, timeout, unit, task);
+    }
+
+    /** Fencing token of the leased lock the current thread is executing under, if any. */
+    public OptionalLong currentFencingToken() {
+        Long token = FENCING_TOKEN.get();
+        return token == null ? OptionalLong.empty() : OptionalLong.of(token);
+    }
+
+    public void advanceFencingToken(String lockKey, long token) {
+        leasedLockRegistry.advanceFencingToken(lockKey, token);
+    }
+
+    // For keys this node exclusively owns (see ClusterMembershipService); no Redis round trips
+    public <T> T executeWithLocalLock(String lockKey, long timeout, TimeUnit unit, Supplier<T> task) {
+        return execute(localLocks.computeIfAbsent(lockKey, key -> new ReentrantLock(true)), "local", lockKey, timeout, unit, task);
+    }
+
+    private <T> T execute(Lock lock, String lockType, String lockKey, long timeout, TimeUnit unit, Supplier<T> task) {
+        LockEvent event = new LockEvent();
+        // Timestamps are only taken while a recording has the event enabled
+        boolean timed = event.isEnabled();
+        event.begin();
+        long requestedAt = timed ? System.nanoTime() : 0;
+        long acquiredAt = requestedAt;
+        boolean acquired = false;
+        Long outerToken = FENCING_TOKEN.get();
         try {
-            boolean acquired = lock.tryLock(DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            acquired = lock.tryLock(timeout, unit);
+            if (timed)
+                acquiredAt = System.nanoTime();
             if (!acquired) {
-                throw new RuntimeException("Could not acquire lock for key: " + lockKey);
+                throw new LockTimeoutException("Could not acquire lock for key: " + lockKey);
             }
-            log.info("Acquired lock for key: {}", lockKey);
+            log.debug("Acquired lock for key: {}", lockKey);
+            if (lock instanceof LeasedLockRegistry.LeasedLock leased)
+                FENCING_TOKEN.set(leased.getFencingToken());
             return task.get();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException("Thread interrupted while waiting for lock", e);
         } finally {
-            try {
-                lock.unlock();
-                log.info("Released lock for key: {}", lockKey);
-            } catch (Exception e) {
-                log.error("Error releasing lock for key: {}", lockKey, e);
+            if (outerToken == null)
+                FENCING_TOKEN.remove();
+            else
+                FENCING_TOKEN.set(outerToken);
+            if (acquired) {
+                try {
+                    lock.unlock();
+                    log.debug("Released lock for key: {}", lockKey);
+                } catch (Exception e) {
+                    log.error("Error releasing lock for key: {}", lockKey, e);
+                }
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                long releasedAt = System.nanoTime();
+                event.lockKey = lockKey;
+                event.lockType = lockType;
+                event.acquired = acquired;
+                event.waitTime = acquiredAt - requestedAt;
+                event.holdTime = acquired && timed ? releasedAt - acquiredAt : 0;
+                event.commit();
             }
         }
     }
@@ -0,0 +1,285 @@
+package com.example.orderemanagement.service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.orderemanagement.dto.ProductResponseDto;
+import com.example.orderemanagement.model.Inventory;
+import com.example.orderemanagement.model.InventoryMovement;
+import com.example.orderemanagement.repository.InventoryMovementRepository;
+import com.example.orderemanagement.repository.InventoryRepository;
+import com.example.orderemanagement.repository.ProductStockView;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stock kept as an append-only ledger ({@code inventory.mode=ledger}). Restocks, sales and
+ * adjustments are inserted into {@code inventory_movements} instead of updating the hot
+ * inventory row, and {@code inventories.stock_quantity} becomes a snapshot of all movements
+ * up to {@code ledger_position}. Sales are admitted against a running balance in Redis,
+ * loaded from snapshot plus movements on first use and handed back if the transaction rolls
+ * back. Writers hold the inventory row in share mode until they commit, so a scheduled
+ * compactor holding it exclusively sees every movement of the product committed: it folds
+ * them into the snapshot row and resets the balance to the result. The movements themselves
+ * are kept as the audit trail.
+ */
+@Service
+@Slf4j
+public class InventoryLedgerService {
+    private static final String BALANCE_PREFIX = "inventory:balance:";
+    private static final String LOADED_KEY = "inventory:balance:loaded";
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> RESERVE = RedisScript.of(new ClassPathResource("scripts/ledger-reserve.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ADJUST = RedisScript.of(new ClassPathResource("scripts/ledger-adjust.lua"), List.class);
+    private static final RedisScript<Long> RESET = RedisScript.of(new ClassPathResource("scripts/ledger-reset.lua"), Long.class);
+
+    private final InventoryMovementRepository movementRepository;
+    private final InventoryRepository inventoryRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readTemplate;
+    private final boolean enabled;
+
+    public InventoryLedgerService(InventoryMovementRepository movementRepository,
+                                  InventoryRepository inventoryRepository,
+                                  RedisTemplate<String, String> redisTemplate,
+                                  ApplicationEventPublisher eventPublisher,
+                                  MeterRegistry meterRegistry,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${inventory.mode:row}") String mode) {
+        this.movementRepository = movementRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.redisTemplate = redisTemplate;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Joins the caller's transaction: a second pooled connection per buyer would exhaust the pool
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.enabled = "ledger".equalsIgnoreCase(mode);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    static String balanceKey(Long productId) {
+        return BALANCE_PREFIX + productId;
+    }
+
+    private static String epochKey(Long productId) {
+        return BALANCE_PREFIX + productId + ":epoch";
+    }
+
+    /**
+     * Takes {@code quantity} from the product's running balance and returns what is left. The
+     * quantity is given back if the current transaction rolls back.
+     */
+    public int reserve(Long productId, int quantity) {
+        return tryReserve(productId, quantity).orElseThrow(() -> new RuntimeException("Insufficient stock"));
+    }
+
+    /**
+     * Like {@link #reserve}, but answers empty instead of throwing when the balance is too low.
+     * Failures of Redis or the database still throw.
+     */
+    public OptionalInt tryReserve(Long productId, int quantity) {
+        if (quantity <= 0)
+            throw new RuntimeException("Quantity must be positive");
+        holdForShare(productId);
+        List<Long> result = execute(RESERVE, productId, String.valueOf(quantity));
+        if (result.get(0) == -1) {
+            load(productId);
+            result = execute(RESERVE, productId, String.valueOf(quantity));
+        }
+        long left = result.get(0);
+        if (left < 0) {
+            meterRegistry.counter("inventory.ledger.rejected").increment();
+            return OptionalInt.empty();
+        }
+        // Dropped if the balance was reset meanwhile; the reset already left this sale out
+        String epoch = String.valueOf(result.get(1));
+        onRollback(() -> execute(ADJUST, productId, String.valueOf(quantity), epoch));
+        return OptionalInt.of(Math.toIntExact(left));
+    }
+
+    public void recordSale(Long productId, int quantity, Long orderId) {
+        movementRepository.save(new InventoryMovement(productId, InventoryMovement.Type.SALE, -quantity, orderId));
+    }
+
+    /** Appends a restock, or an adjustment when {@code quantity} is negative, and returns the new balance. */
+    public int restock(Long productId, int quantity) {
+        if (quantity < 0) {
+            int left = reserve(productId, -quantity);
+            movementRepository.save(new InventoryMovement(productId, InventoryMovement.Type.ADJUSTMENT, quantity, null));
+            return left;
+        }
+        holdForShare(productId);
+        movementRepository.save(new InventoryMovement(productId, InventoryMovement.Type.RESTOCK, quantity, null));
+        // Applied before commit: a balance loaded after the commit but incremented afterwards would count it twice
+        List<Long> result = execute(ADJUST, productId, String.valueOf(quantity), "");
+        long balance = result.get(0);
+        String epoch = String.valueOf(result.get(1));
+        onRollback(() -> execute(ADJUST, productId, String.valueOf(-quantity), epoch));
+        return balance >= 0 ? Math.toIntExact(balance) : currentStock(List.of(productId)).getOrDefault(productId, 0);
+    }
+
+    /** Stock per product: the snapshot row plus, in ledger mode, the movements not yet folded into it. */
+    public Map<Long, Integer> currentStock(Collection<Long> productIds) {
+        Map<Long, Integer> stock = new LinkedHashMap<>();
+        inventoryRepository.findStockByProductIds(productIds)
+                .forEach(view -> stock.put(view.getProductId(), view.getStockQuantity()));
+        addPending(stock);
+        return stock;
+    }
+
+    /** Adds movements not yet folded into the snapshot to stock levels read from the inventory rows. */
+    public void addPending(Map<Long, Integer> stock) {
+        pending(stock.keySet()).forEach((productId, delta) -> stock.merge(productId, delta, Integer::sum));
+    }
+
+    /** Adds movements not yet folded into the snapshot to products mapped from their inventory rows. */
+    public void addPending(Collection<ProductResponseDto> products) {
+        Map<Long, Integer> pending = pending(products.stream().map(ProductResponseDto::getId).toList());
+        for (ProductResponseDto product : products)
+            product.setStockQuantity(product.getStockQuantity() + pending.getOrDefault(product.getId(), 0));
+    }
+
+    /** Sum of the movements not yet folded into each product's snapshot row; empty in row mode. */
+    public Map<Long, Integer> pending(Collection<Long> productIds) {
+        Map<Long, Integer> pending = new LinkedHashMap<>();
+        if (!enabled || productIds.isEmpty())
+            return pending;
+        for (ProductStockView view : movementRepository.findPendingByProductIds(productIds))
+            pending.put(view.getProductId(), view.getStockQuantity());
+        return pending;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.ledger.compaction-interval-ms:5000}")
+    public void compact() {
+        if (!enabled)
+            return;
+        try {
+            for (Long productId : movementRepository.findProductIdsWithPending())
+                transactionTemplate.executeWithoutResult(status -> fold(productId));
+        } catch (Exception e) {
+            log.warn("Could not compact the inventory ledger", e);
+        }
+    }
+
+    // Covers balances the compactor has no movements for: lost refunds, a restock racing the
+    // first load, or a reload that missed purchases in flight when Redis lost the key
+    @Scheduled(fixedDelayString = "${inventory.ledger.reconcile-interval-ms:60000}")
+    public void reconcileAll() {
+        if (!enabled)
+            return;
+        try {
+            Set<String> loaded = redisTemplate.opsForSet().members(LOADED_KEY);
+            if (loaded == null)
+                return;
+            for (String productId : loaded)
+                transactionTemplate.executeWithoutResult(status -> fold(Long.valueOf(productId)));
+        } catch (Exception e) {
+            log.warn("Could not reconcile inventory ledger balances", e);
+        }
+    }
+
+    // Idempotent under the row lock, so compactors on several nodes can run at once. Writers
+    // hold the row in share mode from their Redis change to their commit, so with it held
+    // exclusively every movement is committed and the balance must equal the folded stock
+    private void fold(Long productId) {
+        Optional<Inventory> locked = inventoryRepository.findByProductIdWithLock(productId);
+        if (locked.isEmpty()) {
+            redisTemplate.delete(List.of(balanceKey(productId), epochKey(productId)));
+            redisTemplate.opsForSet().remove(LOADED_KEY, String.valueOf(productId));
+            return;
+        }
+        Inventory inventory = locked.get();
+        long upTo = movementRepository.findLastIdByProductId(productId);
+        if (upTo > inventory.getLedgerPosition()) {
+            long delta = movementRepository.sumBetween(productId, inventory.getLedgerPosition(), upTo);
+            int stock = Math.toIntExact(inventory.getStockQuantity() + delta);
+            inventory.setStockQuantity(stock);
+            inventory.setLedgerPosition(upTo);
+            inventoryRepository.save(inventory);
+            if (stock < 0) {
+                meterRegistry.counter("inventory.ledger.oversold").increment();
+                log.warn("Ledger of product {} folded to negative stock {}", productId, stock);
+            }
+            meterRegistry.counter("inventory.ledger.folds").increment();
+            eventPublisher.publishEvent(new ProductChangedEvent(productId));
+        }
+        int stock = inventory.getStockQuantity();
+        Long previous = reset(productId, stock, "reconcile");
+        if (previous != null && previous != -1 && previous != stock) {
+            meterRegistry.counter("inventory.ledger.reconciled").increment();
+            log.warn("Reset running balance of product {} from {} to {}", productId, previous, stock);
+        }
+    }
+
+    // The caller's snapshot may predate a sale committed moments ago; reconcileAll corrects that
+    private void load(Long productId) {
+        Integer stock = readTemplate.execute(status -> currentStock(List.of(productId)).get(productId));
+        if (stock == null)
+            throw new RuntimeException("Inventory not found");
+        reset(productId, stock, "load");
+    }
+
+    // Keeps the compactor from folding the product until the caller's transaction ends
+    private void holdForShare(Long productId) {
+        if (inventoryRepository.findByProductIdForShare(productId).isEmpty())
+            throw new RuntimeException("Inventory not found");
+    }
+
+    private Long reset(Long productId, int stock, String mode) {
+        return redisTemplate.execute(RESET, List.of(balanceKey(productId), epochKey(productId), LOADED_KEY),
+                String.valueOf(stock), mode, String.valueOf(productId));
+    }
+
+    // Both ledger scripts answer {balance or status, epoch}
+    @SuppressWarnings("rawtypes")
+    private List<Long> execute(RedisScript<List> script, Long productId, String... args) {
+        List<?> result = redisTemplate.execute(script, List.of(balanceKey(productId), epochKey(productId)), (Object[]) args);
+        if (result == null || result.size() < 2)
+            throw new RuntimeException("Inventory ledger unavailable");
+        return result.stream().map(value -> ((Number) value).longValue()).toList();
+    }
+
+    private static void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK)
+                    return;
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    log.warn("Could not return reserved stock to the running balance", e);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.orderemanagement.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Redis locks with short leases. A watchdog thread renews every held lease while this
+ * instance is alive, so a crashed holder releases its key within one lease period instead
+ * of the registry's fixed expiry. Each acquisition also draws a per-key fencing token from
+ * a Redis counter; writers compare it with the token stored next to the data they guard, so
+ * a holder that lost its lease (for example during a long GC pause) cannot overwrite the
+ * work of the next holder.
+ */
+@Service
+@Slf4j
+public class LeasedLockRegistry {
+    private static final String LEASE_PREFIX = "lease:";
+    private static final String FENCE_PREFIX = "lease:fence:";
+    private static final long MAX_BACKOFF_MILLIS = 50;
+    private static final RedisScript<Long> ACQUIRE = RedisScript.of(new ClassPathResource("scripts/lease-acquire.lua"), Long.class);
+    private static final RedisScript<Long> RENEW = RedisScript.of(new ClassPathResource("scripts/lease-renew.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE = RedisScript.of(new ClassPathResource("scripts/lease-release.lua"), Long.class);
+    private static final RedisScript<Long> ADVANCE = RedisScript.of(new ClassPathResource("scripts/fence-advance.lua"), Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long leaseMillis;
+    private final long renewIntervalMillis;
+    private final Set<LeasedLock> held = ConcurrentHashMap.newKeySet();
+    // Not the shared @Scheduled pool: a slow scheduled job there must not delay renewals
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lease-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LeasedLockRegistry(RedisTemplate<String, String> redisTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${locks.mode:registry}") String mode,
+                              @Value("${locks.lease-ms:1500}") long leaseMillis,
+                              @Value("${locks.renew-interval-ms:500}") long renewIntervalMillis) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = "leased".equalsIgnoreCase(mode);
+        this.leaseMillis = leaseMillis;
+        this.renewIntervalMillis = Math.min(renewIntervalMillis, leaseMillis / 2);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled)
+            watchdog.scheduleWithFixedDelay(this::renewAll, renewIntervalMillis, renewIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        watchdog.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public LeasedLock obtain(String lockKey) {
+        return new LeasedLock(lockKey);
+    }
+
+    /** Raises the key's fencing counter to at least {@code token}, e.g. after Redis lost it. */
+    public void advanceFencingToken(String lockKey, long token) {
+        try {
+            redisTemplate.execute(ADVANCE, List.of(FENCE_PREFIX + lockKey), String.valueOf(token));
+        } catch (Exception e) {
+            log.warn("Could not advance fencing token for key {}", lockKey, e);
+        }
+    }
+
+    private void renewAll() {
+        long now = System.currentTimeMillis();
+        for (LeasedLock lock : held) {
+            try {
+                Long renewed = redisTemplate.execute(RENEW, List.of(LEASE_PREFIX + lock.key),
+                        lock.owner, String.valueOf(leaseMillis));
+                if (renewed != null && renewed > 0)
+                    lock.expiresAt = now + leaseMillis;
+                else
+                    lost(lock);
+            } catch (Exception e) {
+                log.warn("Could not renew lease for key {}", lock.key, e);
+                if (System.currentTimeMillis() >= lock.expiresAt)
+                    lost(lock);
+            }
+        }
+    }
+
+    private void lost(LeasedLock lock) {
+        if (held.remove(lock)) {
+            lock.lost = true;
+            meterRegistry.counter("locks.lease.lost").increment();
+            log.warn("Lease for key {} (fencing token {}) expired while held", lock.key, lock.fencingToken);
+        }
+    }
+
+    /** One acquisition of a leased key; obtain a new instance for every critical section. */
+    public final class LeasedLock implements Lock {
+        private final String key;
+        private final String owner = UUID.randomUUID().toString();
+        private volatile long fencingToken;
+        private volatile long expiresAt;
+        private volatile boolean lost;
+
+        private LeasedLock(String key) {
+            this.key = key;
+        }
+
+        public long getFencingToken() {
+            return fencingToken;
+        }
+
+        public boolean isLost() {
+            return lost;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(time);
+            long backoff = 1;
+            while (true) {
+                if (tryAcquire())
+                    return true;
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0)
+                    return false;
+                Thread.sleep(Math.min(remainingMillis, backoff + ThreadLocalRandom.current().nextLong(backoff + 1)));
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            return tryAcquire();
+        }
+
+        @Override
+        public void lock() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    if (tryLock(leaseMillis, TimeUnit.MILLISECONDS))
+                        break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            while (!tryLock(leaseMillis, TimeUnit.MILLISECONDS))
+                ;
+        }
+
+        @Override
+        public void unlock() {
+            held.remove(this);
+            Long released = redisTemplate.execute(RELEASE, List.of(LEASE_PREFIX + key), owner);
+            if (released == null || released == 0)
+                log.debug("Lease for key {} had already expired before release", key);
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Leased locks do not support conditions");
+        }
+
+        private boolean tryAcquire() {
+            long requestedAt = System.currentTimeMillis();
+            Long token = redisTemplate.execute(ACQUIRE, List.of(LEASE_PREFIX + key, FENCE_PREFIX + key),
+                    owner, String.valueOf(leaseMillis));
+            if (token == null || token == 0)
+                return false;
+            fencingToken = token;
+            expiresAt = requestedAt + leaseMillis;
+            held.add(this);
+            return true;
+        }
+    }
+}
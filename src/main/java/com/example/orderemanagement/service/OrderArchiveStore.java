@@ -0,0 +1,215 @@
+package com.example.orderemanagement.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.orderemanagement.dto.OrderResponseDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Cold storage for orders moved out of the live table: one gzipped NDJSON file per month
+ * ({@code orders-YYYY-MM.ndjson.gz}) and, next to it, the sorted ids of the customers it
+ * holds ({@code orders-YYYY-MM.customers}), so history reads only open months that contain
+ * the customer.
+ */
+@Service
+public class OrderArchiveStore {
+    private static final String PREFIX = "orders-";
+    private static final String SUFFIX = ".ndjson.gz";
+    private static final String INDEX_SUFFIX = ".customers";
+
+    /** Orders in an archived month and the sum of their ids, read back from the file. */
+    public record Summary(long orders, long idSum) {
+    }
+
+    // Customer ids per month; rereading is keyed on the archive's modification time, since a
+    // month is rewritten when an earlier archival run did not get to drop its partition
+    private record CustomerIndex(FileTime modified, long[] customerIds) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final Map<YearMonth, CustomerIndex> indexes = new ConcurrentHashMap<>();
+
+    public OrderArchiveStore(ObjectMapper objectMapper,
+                             @Value("${orders.archive.directory:./order-archive}") String directory) {
+        this.objectMapper = objectMapper;
+        this.directory = Path.of(directory);
+    }
+
+    public long writeMonth(YearMonth month, Stream<OrderResponseDto> orders) throws IOException {
+        Files.createDirectories(directory);
+        Path target = archiveFile(month);
+        Path temp = directory.resolve(PREFIX + month + SUFFIX + ".tmp");
+        long written = 0;
+        Set<Long> customerIds = new HashSet<>();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+            for (OrderResponseDto order : (Iterable<OrderResponseDto>) orders::iterator) {
+                writer.write(objectMapper.writeValueAsString(order));
+                writer.write('\n');
+                customerIds.add(order.getCustomerId());
+                written++;
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writeIndex(month, customerIds.stream().mapToLong(Long::longValue).sorted().toArray());
+        return written;
+    }
+
+    /** Reads an archived month back in full, so it can be checked before its partition is dropped. */
+    public Summary summarize(YearMonth month) throws IOException {
+        long count = 0;
+        long idSum = 0;
+        try (BufferedReader reader = open(archiveFile(month))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                idSum += objectMapper.readValue(line, OrderResponseDto.class).getId();
+                count++;
+            }
+        }
+        return new Summary(count, idSum);
+    }
+
+    public List<OrderResponseDto> findByCustomer(Long customerId, LocalDateTime since) {
+        List<OrderResponseDto> orders = new ArrayList<>();
+        if (!Files.isDirectory(directory))
+            return orders;
+        YearMonth firstMonth = YearMonth.from(since);
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> months = files
+                    .filter(file -> file.getFileName().toString().startsWith(PREFIX)
+                            && file.getFileName().toString().endsWith(SUFFIX))
+                    .filter(file -> !monthOf(file).isBefore(firstMonth))
+                    .filter(file -> containsCustomer(file, customerId))
+                    .sorted(Comparator.comparing(OrderArchiveStore::monthOf).reversed())
+                    .toList();
+            for (Path file : months)
+                readCustomerOrders(file, customerId, since, orders);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read order archive", e);
+        }
+        return orders;
+    }
+
+    private void readCustomerOrders(Path file, Long customerId, LocalDateTime since, List<OrderResponseDto> into)
+            throws IOException {
+        // Cheap pre-filter before parsing each line; independent of field order and spacing
+        Pattern customerField = Pattern.compile("\"customerId\"\\s*:\\s*" + customerId + "(?!\\d)");
+        try (BufferedReader reader = open(file)) {
+            List<OrderResponseDto> monthOrders = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!customerField.matcher(line).find())
+                    continue;
+                OrderResponseDto order = objectMapper.readValue(line, OrderResponseDto.class);
+                if (customerId.equals(order.getCustomerId()) && !order.getCreatedAt().isBefore(since))
+                    monthOrders.add(order);
+            }
+            monthOrders.sort(Comparator.comparing(OrderResponseDto::getCreatedAt).reversed());
+            into.addAll(monthOrders);
+        }
+    }
+
+    private boolean containsCustomer(Path file, Long customerId) {
+        try {
+            return Arrays.binarySearch(index(monthOf(file), file).customerIds(), customerId) >= 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read order archive index of " + file, e);
+        }
+    }
+
+    private CustomerIndex index(YearMonth month, Path file) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file);
+        CustomerIndex cached = indexes.get(month);
+        if (cached != null && cached.modified().equals(modified))
+            return cached;
+        Path indexFile = indexFile(month);
+        long[] customerIds;
+        if (Files.exists(indexFile) && !Files.getLastModifiedTime(indexFile).toInstant().isBefore(modified.toInstant())) {
+            try (Stream<String> lines = Files.lines(indexFile)) {
+                customerIds = lines.filter(line -> !line.isBlank()).mapToLong(Long::parseLong).toArray();
+            }
+        } else {
+            // Archives written before the index existed, or whose index write was interrupted
+            try (BufferedReader reader = open(file)) {
+                customerIds = reader.lines()
+                        .mapToLong(line -> readOrder(line).getCustomerId())
+                        .distinct().sorted().toArray();
+            }
+            try {
+                writeIndex(month, customerIds);
+            } catch (IOException e) {
+                // A read-only archive volume still gets the index, in memory only
+            }
+        }
+        CustomerIndex index = new CustomerIndex(modified, customerIds);
+        indexes.put(month, index);
+        return index;
+    }
+
+    private void writeIndex(YearMonth month, long[] customerIds) throws IOException {
+        Path target = indexFile(month);
+        Path temp = directory.resolve(PREFIX + month + INDEX_SUFFIX + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (long customerId : customerIds) {
+                writer.write(Long.toString(customerId));
+                writer.write('\n');
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        indexes.remove(month);
+    }
+
+    private OrderResponseDto readOrder(String line) {
+        try {
+            return objectMapper.readValue(line, OrderResponseDto.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path archiveFile(YearMonth month) {
+        return directory.resolve(PREFIX + month + SUFFIX);
+    }
+
+    private Path indexFile(YearMonth month) {
+        return directory.resolve(PREFIX + month + INDEX_SUFFIX);
+    }
+
+    private static BufferedReader open(Path file) throws IOException {
+        return new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8));
+    }
+
+    private static YearMonth monthOf(Path file) {
+        String name = file.getFileName().toString();
+        return YearMonth.parse(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.orderemanagement.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+
+import com.example.orderemanagement.dto.OrderResponseDto;
+import com.example.orderemanagement.mapper.OrderMapper;
+import com.example.orderemanagement.repository.CustomerRepository;
+import com.example.orderemanagement.repository.OrderRepository;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class OrderHistoryService {
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final OrderRepository orderRepository;
+    private final CustomerRepository customerRepository;
+    private final OrderArchiveStore archiveStore;
+
+    public List<OrderResponseDto> getOrderHistory(Long customerId, LocalDate since) {
+        if (!customerRepository.existsById(customerId))
+            throw new RuntimeException("Customer not found");
+        LocalDateTime from = since == null ? BEGINNING : since.atStartOfDay();
+
+        // Newest first: live orders, then archived months; an order can briefly exist in
+        // both while its partition is being archived
+        Map<Long, OrderResponseDto> orders = new LinkedHashMap<>();
+        orderRepository.findByCustomerIdAndCreatedAtGreaterThanEqualOrderByCreatedAtDesc(customerId, from)
+                .forEach(order -> orders.put(order.getId(), OrderMapper.toResponseDto(order)));
+        archiveStore.findByCustomer(customerId, from)
+                .forEach(order -> orders.putIfAbsent(order.getId(), order));
+        return new ArrayList<>(orders.values());
+    }
+}
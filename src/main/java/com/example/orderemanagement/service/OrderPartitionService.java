@@ -0,0 +1,215 @@
+package com.example.orderemanagement.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.orderemanagement.dto.OrderResponseDto;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the MySQL {@code orders} table RANGE-partitioned by month of {@code created_at}.
+ * Partitions for the coming months are created ahead of time, and partitions older than the
+ * retention window are written to the {@link OrderArchiveStore} and dropped, so the live
+ * table and its indexes only hold recent orders.
+ */
+@Service
+@Slf4j
+public class OrderPartitionService {
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final String MAINTENANCE_LOCK = "orders:partition-maintenance";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final OrderArchiveStore archiveStore;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public OrderPartitionService(JdbcTemplate jdbcTemplate,
+                                 OrderArchiveStore archiveStore,
+                                 @Value("${orders.partitioning.enabled:false}") boolean enabled,
+                                 @Value("${orders.partitioning.months-ahead:3}") int monthsAhead,
+                                 @Value("${orders.archive.retention-months:12}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE); // MySQL row-by-row streaming
+        this.archiveStore = archiveStore;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${orders.partitioning.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        if (!enabled)
+            return;
+        try {
+            // Only one node runs maintenance; the others skip instead of waiting
+            boolean ran = runExclusively(() -> {
+                if (!isPartitioned())
+                    convertToPartitioned();
+                ensureFuturePartitions();
+                archiveExpiredPartitions();
+            });
+            if (!ran)
+                log.debug("Order partition maintenance already running on another node");
+        } catch (Exception e) {
+            log.error("Order partition maintenance failed", e);
+        }
+    }
+
+    // A MySQL named lock is held by its session for as long as the DDL takes, unlike a lock with
+    // a fixed expiry, and is released by the server if this node dies
+    private boolean runExclusively(Runnable work) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (PreparedStatement lock = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+                lock.setString(1, MAINTENANCE_LOCK);
+                try (ResultSet result = lock.executeQuery()) {
+                    if (!result.next() || result.getInt(1) != 1)
+                        return false;
+                }
+            }
+            try {
+                work.run();
+                return true;
+            } finally {
+                try (PreparedStatement release = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                    release.setString(1, MAINTENANCE_LOCK);
+                    release.execute();
+                }
+            }
+        }));
+    }
+
+    private boolean isPartitioned() {
+        Integer partitions = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'orders' AND PARTITION_NAME IS NOT NULL",
+                Integer.class);
+        return partitions != null && partitions > 0;
+    }
+
+    private void convertToPartitioned() {
+        log.info("Converting orders table to monthly partitions");
+        // Partitioned InnoDB tables allow neither foreign keys nor unique keys without the partition column
+        jdbcTemplate.queryForList(
+                "SELECT CONSTRAINT_NAME FROM information_schema.TABLE_CONSTRAINTS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'orders' AND CONSTRAINT_TYPE = 'FOREIGN KEY'",
+                String.class)
+                .forEach(fk -> jdbcTemplate.execute("ALTER TABLE orders DROP FOREIGN KEY `" + fk + "`"));
+        jdbcTemplate.queryForList(
+                "SELECT CONSTRAINT_NAME FROM information_schema.TABLE_CONSTRAINTS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'orders' AND CONSTRAINT_TYPE = 'UNIQUE'",
+                String.class)
+                .forEach(index -> jdbcTemplate.execute("ALTER TABLE orders DROP INDEX `" + index + "`"));
+
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM orders", Timestamp.class);
+        YearMonth first = oldest == null ? YearMonth.now() : YearMonth.from(oldest.toLocalDateTime());
+        List<String> definitions = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(YearMonth.now().plusMonths(monthsAhead)); month = month.plusMonths(1))
+            definitions.add(partitionDefinition(month));
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE");
+
+        jdbcTemplate.execute("ALTER TABLE orders DROP PRIMARY KEY, ADD PRIMARY KEY (id, created_at) " +
+                "PARTITION BY RANGE (TO_DAYS(created_at)) (" + String.join(", ", definitions) + ")");
+    }
+
+    private void ensureFuturePartitions() {
+        List<YearMonth> existing = monthlyPartitions();
+        YearMonth next = existing.isEmpty() ? YearMonth.now() : existing.get(existing.size() - 1).plusMonths(1);
+        List<String> definitions = new ArrayList<>();
+        for (YearMonth month = next; !month.isAfter(YearMonth.now().plusMonths(monthsAhead)); month = month.plusMonths(1))
+            definitions.add(partitionDefinition(month));
+        if (definitions.isEmpty())
+            return;
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE");
+        jdbcTemplate.execute("ALTER TABLE orders REORGANIZE PARTITION " + FUTURE_PARTITION +
+                " INTO (" + String.join(", ", definitions) + ")");
+        log.info("Added {} order partitions starting at {}", definitions.size() - 1, next);
+    }
+
+    private void archiveExpiredPartitions() {
+        YearMonth cutoff = YearMonth.now().minusMonths(retentionMonths);
+        for (YearMonth month : monthlyPartitions()) {
+            if (!month.isBefore(cutoff))
+                break;
+            String partition = month.format(PARTITION_NAME);
+            long archived;
+            try (Stream<OrderResponseDto> orders = streamingJdbcTemplate.queryForStream(
+                    "SELECT id, customer_id, product_id, quantity, created_at FROM orders PARTITION (" + partition + ")",
+                    (rs, rowNum) -> {
+                        OrderResponseDto order = new OrderResponseDto();
+                        order.setId(rs.getLong("id"));
+                        order.setCustomerId(rs.getLong("customer_id"));
+                        order.setProductId(rs.getLong("product_id"));
+                        order.setQuantity(rs.getInt("quantity"));
+                        order.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                        return order;
+                    })) {
+                archived = archiveStore.writeMonth(month, orders);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not archive partition " + partition, e);
+            }
+            verifyArchive(month, partition);
+            jdbcTemplate.execute("ALTER TABLE orders DROP PARTITION " + partition);
+            log.info("Archived {} orders from partition {} and dropped it", archived, partition);
+        }
+    }
+
+    // The partition is only dropped once the file read back holds exactly its orders; on a
+    // mismatch it stays live and is archived again on the next run
+    private void verifyArchive(YearMonth month, String partition) {
+        OrderArchiveStore.Summary live = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*), COALESCE(SUM(id), 0) FROM orders PARTITION (" + partition + ")",
+                (rs, rowNum) -> new OrderArchiveStore.Summary(rs.getLong(1), rs.getLong(2)));
+        OrderArchiveStore.Summary archived;
+        try {
+            archived = archiveStore.summarize(month);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read back archive of partition " + partition, e);
+        }
+        if (!archived.equals(live))
+            throw new IllegalStateException("Archive of partition " + partition + " holds " + archived
+                    + " but the partition holds " + live + "; not dropping it");
+    }
+
+    private List<YearMonth> monthlyPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'orders' AND PARTITION_NAME IS NOT NULL " +
+                "ORDER BY PARTITION_ORDINAL_POSITION", String.class)
+                .stream()
+                .filter(name -> !FUTURE_PARTITION.equals(name))
+                .map(name -> YearMonth.parse(name, PARTITION_NAME))
+                .toList();
+    }
+
+    private static String partitionDefinition(YearMonth month) {
+        LocalDate upperBound = month.plusMonths(1).atDay(1);
+        return "PARTITION " + month.format(PARTITION_NAME) + " VALUES LESS THAN (TO_DAYS('" + upperBound + "'))";
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.orderemanagement.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.example.orderemanagement.exception.LoadSheddingException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs BCrypt hashing and verification on a small dedicated pool so that registration and
+ * login storms cannot occupy request threads needed by buys and catalog reads. When
+ * {@code auth.hashing.queue-capacity} hashes are already waiting, new ones are rejected
+ * with 503 instead of queueing without bound.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService timedExecutor;
+    private final Counter rejectedCounter;
+    private final long retryAfterSeconds;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${auth.hashing.threads:0}") int threads,
+                                  @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${auth.hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hashing-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.rejectedCounter = Counter.builder("password.hashing.rejected").register(meterRegistry);
+        // Exposes executor.queued, executor.active, executor (task timer), ... tagged name=password.hashing
+        this.timedExecutor = ExecutorServiceMetrics.monitor(meterRegistry, executor, "password.hashing");
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, timedExecutor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Rejecting password hash: {} already queued", executor.getQueue().size());
+            throw new LoadSheddingException("Too many sign-in requests, retry later",
+                    HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds);
+        }
+    }
+}
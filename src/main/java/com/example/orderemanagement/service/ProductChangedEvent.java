@@ -0,0 +1,5 @@
+package com.example.orderemanagement.service;
+
+/** Published by {@link ProductService} whenever a product's details or stock change. */
+public record ProductChangedEvent(Long productId) {
+}
@@ -1,17 +1,36 @@
 package com.example.orderemanagement.service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.orderemanagement.cluster.ClusterMembershipService;
 import com.example.orderemanagement.dto.AddInventoryRequestDto;
 import com.example.orderemanagement.dto.AddProductRequestDto;
 import com.example.orderemanagement.dto.BuyProductRequestDto;
+import com.example.orderemanagement.dto.CatalogDeltaDto;
 import com.example.orderemanagement.dto.ProductResponseDto;
+import com.example.orderemanagement.dto.StockAvailabilityRequestDto;
 import com.example.orderemanagement.dto.UpdateProductRequestDto;
+import com.example.orderemanagement.exception.StaleLockException;
+import com.example.orderemanagement.journal.JournalRecord;
+import com.example.orderemanagement.journal.OrderJournal;
 import com.example.orderemanagement.mapper.InventoryMapper;
 import com.example.orderemanagement.mapper.OrderMapper;
 import com.example.orderemanagement.mapper.ProductMapper;
@@ -19,10 +38,15 @@ import com.example.orderemanagement.model.Customer;
 import com.example.orderemanagement.model.Inventory;
 import com.example.orderemanagement.model.Product;
 import com.example.orderemanagement.model.Order;
+import com.example.orderemanagement.monitoring.LogMarkers;
+import com.example.orderemanagement.monitoring.jfr.CatalogReadEvent;
+import com.example.orderemanagement.monitoring.jfr.PurchasePhaseEvent;
+import com.example.orderemanagement.monitoring.jfr.PurchaseTransactionEvent;
 import com.example.orderemanagement.repository.CustomerRepository;
 import com.example.orderemanagement.repository.InventoryRepository;
 import com.example.orderemanagement.repository.OrderRepository;
 import com.example.orderemanagement.repository.ProductRepository;
+import com.example.orderemanagement.repository.ProductStockView;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -36,42 +60,83 @@ public class ProductService {
     private final OrderRepository orderRepository;
     private final CustomerRepository customerRepository;
     private final DistributedLockService lockService;
+    private final BuyAdmissionService admissionService;
+    private final SalesAggregateService salesAggregateService;
+    private final ClusterMembershipService clusterMembershipService;
+    private final OrderJournal orderJournal;
+    private final SoldOutService soldOutService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogFeedService catalogFeedService;
+    private final InventoryLedgerService inventoryLedgerService;
+    private final PlatformTransactionManager transactionManager;
 
     public Product addProduct(AddProductRequestDto requestDto) {
         if (productRepository.findByName(requestDto.getName()).isPresent())
             throw new RuntimeException("Product with this name already exists");
         Product product = ProductMapper.toEntity(requestDto);
         productRepository.save(product);
-        inventoryRepository.save(InventoryMapper.toEntity(product, requestDto));
+        Inventory inventory = inventoryRepository.save(InventoryMapper.toEntity(product, requestDto));
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+        catalogFeedService.record(CatalogDeltaDto.upsert(InventoryMapper.toResponseDto(inventory, ProductMapper.toResponseDto(product))));
         return product;
     }
 
     public List<ProductResponseDto> getAllProducts() {
-        List<Product> products = productRepository.findAll();
-        return products.stream().map(product -> {
-            ProductResponseDto dto = ProductMapper.toResponseDto(product);
-            InventoryMapper.toResponseDto(inventoryRepository.findByProduct(product)
-                                          .orElseThrow(() -> new RuntimeException("Inventory not found"))
-                                          , dto);
-            return dto;
-        }).collect(Collectors.toList());
+        CatalogReadEvent event = CatalogReadEvent.start("list");
+        List<Inventory> inventories = inventoryRepository.findAllWithProduct();
+        List<ProductResponseDto> products = inventories.stream()
+                .map(inventory -> InventoryMapper.toResponseDto(inventory, ProductMapper.toResponseDto(inventory.getProduct())))
+                .collect(Collectors.toList());
+        inventoryLedgerService.addPending(products);
+        event.finish(products.size());
+        return products;
     }
 
     public ProductResponseDto getProductByName(String name) {
+        CatalogReadEvent event = CatalogReadEvent.start("by-name");
         Product product = productRepository.findByName(name)
                                           .orElseThrow(() -> new RuntimeException("Product not found"));
         ProductResponseDto dto = ProductMapper.toResponseDto(product);
         InventoryMapper.toResponseDto(inventoryRepository.findByProduct(product)
                                           .orElseThrow(() -> new RuntimeException("Inventory not found"))
                                           , dto);
+        inventoryLedgerService.addPending(List.of(dto));
+        event.finish(1);
         return dto;
     }
 
+    public Map<Long, Integer> getStockAvailability(StockAvailabilityRequestDto requestDto) {
+        List<Long> ids = requestDto.getProductIds() == null ? List.of() : requestDto.getProductIds();
+        List<String> names = requestDto.getProductNames() == null ? List.of() : requestDto.getProductNames();
+        if (ids.isEmpty() && names.isEmpty())
+            throw new RuntimeException("Either product IDs or names must be provided.");
+
+        CatalogReadEvent event = CatalogReadEvent.start("availability");
+        List<ProductStockView> stock;
+        if (names.isEmpty())
+            stock = inventoryRepository.findStockByProductIds(ids);
+        else if (ids.isEmpty())
+            stock = inventoryRepository.findStockByProductNames(names);
+        else
+            stock = inventoryRepository.findStockByProductIdsOrNames(ids, names);
+
+        Map<Long, Integer> availability = new LinkedHashMap<>();
+        stock.forEach(view -> availability.put(view.getProductId(), view.getStockQuantity()));
+        inventoryLedgerService.addPending(availability);
+        event.finish(availability.size());
+        return availability;
+    }
+
     @Transactional
     public void deleteProduct(Long id, String name) {
         Product product = resolveProduct(id, name);
+        // Row lock: catalog feed versions of one product must follow the order of its changes
+        inventoryRepository.findByProductWithLock(product);
         inventoryRepository.deleteById(product.getId());
         productRepository.delete(product);
+        soldOutService.clear(product.getId());
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+        catalogFeedService.record(CatalogDeltaDto.delete(product.getId()));
     }
 
 
@@ -85,67 +150,306 @@ public class ProductService {
         if (requestDto.getNewPrice() != null)
             product.setPrice(Double.parseDouble(requestDto.getNewPrice()));
         productRepository.save(product);
-        ProductResponseDto responseDto = ProductMapper.toResponseDto(product);
-        return InventoryMapper.toResponseDto(inventoryRepository.findByProduct(product)
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+        ProductResponseDto responseDto = InventoryMapper.toResponseDto(inventoryRepository.findByProductWithLock(product)
                                           .orElseThrow(() -> new RuntimeException("Inventory not found"))
-                                          , responseDto);
+                                          , ProductMapper.toResponseDto(product));
+        inventoryLedgerService.addPending(List.of(responseDto));
+        catalogFeedService.record(CatalogDeltaDto.upsert(responseDto));
+        return responseDto;
     }
     
 
     @Transactional
     public ProductResponseDto addToInventory(AddInventoryRequestDto requestDto, Long id, String name) {
         Product product = resolveProduct(id, name);
-        Inventory inventory = inventoryRepository.findByProduct(product)
+        if (inventoryLedgerService.isEnabled())
+            return restockLedger(product, requestDto.getQuantityToAdd());
+        Inventory inventory = inventoryRepository.findByProductWithLock(product)
             .orElseThrow(() -> new RuntimeException("Inventory not found"));
         inventory.setStockQuantity(inventory.getStockQuantity() + requestDto.getQuantityToAdd());
         inventoryRepository.save(inventory);
+        if (inventory.getStockQuantity() > 0)
+            soldOutService.clear(product.getId());
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+        catalogFeedService.record(CatalogDeltaDto.stock(product.getId(), inventory.getStockQuantity()));
         ProductResponseDto responseDto = ProductMapper.toResponseDto(product);
         return InventoryMapper.toResponseDto(inventory, responseDto);
     }
     
 
-    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    /**
+     * Admission and the product lock are obtained before the purchase transaction starts, so
+     * buyers queued on a hot product do not hold database connections while they wait, and the
+     * lock is only released after the transaction has committed.
+     */
     public Long buyProduct(BuyProductRequestDto requestDto) {
-        log.info("Starting buyProduct transaction for product ID: {}, customer ID: {}", 
-                 requestDto.getProductId(), requestDto.getCustomerId());
+        log.debug("Starting buyProduct for product ID: {}, customer ID: {}",
+                  requestDto.getProductId(), requestDto.getCustomerId());
         
+        PurchaseTransactionEvent transactionEvent = PurchaseTransactionEvent.start();
+        // Before any lock or database work; name-only requests are checked once resolved
+        soldOutService.rejectIfSoldOut(requestDto.getProductId());
+        PurchasePhaseEvent resolveEvent = PurchasePhaseEvent.start(PurchasePhaseEvent.RESOLVE);
         Product product = resolveProduct(requestDto.getProductId(), requestDto.getProductName());
-        String lockKey = "product:" + product.getId();
+        resolveEvent.finish(product.getId(), requestDto.getQuantity());
+        soldOutService.rejectIfSoldOut(product.getId());
+        Supplier<Long> purchase = () -> inPurchaseTransaction(() -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    transactionEvent.finish(product.getId(), status == STATUS_COMMITTED ? "committed"
+                            : status == STATUS_ROLLED_BACK ? "rolled-back" : "unknown");
+                }
+            });
+            return inventoryLedgerService.isEnabled()
+                    ? purchaseFromLedger(product, requestDto)
+                    : purchaseUnderLock(product, requestDto);
+        });
+
+        if (inventoryLedgerService.isEnabled())
+            return admissionService.executeAdmitted(product.getId(), purchase);
+        long deadline = admissionService.getDeadlineMillis();
+        return admissionService.executeAdmitted(product.getId(), () -> withProductLock(product.getId(), deadline, purchase));
+    }
+
+    /**
+     * Processes queued purchases of one product under a single lock acquisition and inventory
+     * row lock. Requests are applied in order; one that cannot be fulfilled is rejected without
+     * affecting the rest of the batch.
+     */
+    public List<PurchaseOutcome> buyProductBatch(Long productId, List<BuyProductRequestDto> requests, long lockTimeoutMillis) {
+        Product product = productRepository.findById(productId)
+            .orElseThrow(() -> new RuntimeException("Product not found"));
+        if (inventoryLedgerService.isEnabled())
+            return inPurchaseTransaction(() -> purchaseBatchFromLedger(product, requests));
+        return withProductLock(productId, lockTimeoutMillis,
+                () -> inPurchaseTransaction(() -> purchaseBatchUnderLock(product, requests)));
+    }
+
+    public Long resolveProductId(Long id, String name) {
+        return resolveProduct(id, name).getId();
+    }
+
+    // Joins a surrounding transaction (the warm-up's always rolled-back one) if there is one
+    private <T> T inPurchaseTransaction(Supplier<T> work) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        return transaction.execute(status -> work.get());
+    }
+
+    private <T> T withProductLock(Long productId, long timeoutMillis, Supplier<T> task) {
+        String lockKey = productLockKey(productId);
+        return clusterMembershipService.ownsLocally(productId)
+                ? lockService.executeWithLocalLock(lockKey, timeoutMillis, TimeUnit.MILLISECONDS, task)
+                : lockService.executeWithLock(lockKey, timeoutMillis, TimeUnit.MILLISECONDS, task);
+    }
+
+    private static String productLockKey(Long productId) {
+        return "product:" + productId;
+    }
+
+    private Long purchaseUnderLock(Product product, BuyProductRequestDto requestDto) {
+        // Use SELECT FOR UPDATE to get the latest committed inventory value
+        PurchasePhaseEvent inventoryLockEvent = PurchasePhaseEvent.start(PurchasePhaseEvent.INVENTORY_LOCK);
+        Inventory inventory = inventoryRepository.findByProductWithLock(product)
+            .orElseThrow(() -> new RuntimeException("Inventory not found"));
+        inventoryLockEvent.finish(product.getId(), requestDto.getQuantity());
+        applyFencingToken(product, inventory);
         
-        return lockService.executeWithLock(lockKey, () -> {
-            log.info("Acquired Redis lock for product: {}", product.getId());
-            
-            // Use SELECT FOR UPDATE to get the latest committed inventory value
-            Inventory inventory = inventoryRepository.findByProductWithLock(product)
-                .orElseThrow(() -> new RuntimeException("Inventory not found"));
-            
-            log.info("Current stock quantity for product {}: {}", 
-                     product.getId(), inventory.getStockQuantity());
-            
-            if (inventory.getStockQuantity() < requestDto.getQuantity()) {
-                log.error("Insufficient stock for product {}. Required: {}, Available: {}", 
-                         product.getId(), requestDto.getQuantity(), inventory.getStockQuantity());
-                throw new RuntimeException("Insufficient stock");
-            }
-            
-            int newQuantity = inventory.getStockQuantity() - requestDto.getQuantity();
-            inventory.setStockQuantity(newQuantity);
-            inventoryRepository.save(inventory);
-            
-            log.info("Updated stock quantity for product {} to: {}", 
-                     product.getId(), newQuantity);
-            
-            Customer customer = customerRepository.findById(requestDto.getCustomerId())
-                .orElseThrow(() -> new RuntimeException("Customer not found"));
-            
+        if (inventory.getStockQuantity() < requestDto.getQuantity()) {
+            log.debug("Insufficient stock for product {}. Required: {}, Available: {}",
+                      product.getId(), requestDto.getQuantity(), inventory.getStockQuantity());
+            throw new RuntimeException("Insufficient stock");
+        }
+        
+        int newQuantity = inventory.getStockQuantity() - requestDto.getQuantity();
+        inventory.setStockQuantity(newQuantity);
+        inventoryRepository.save(inventory);
+        
+        if (newQuantity == 0)
+            soldOutService.markSoldOut(product.getId());
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+        catalogFeedService.record(CatalogDeltaDto.stock(product.getId(), newQuantity));
+        
+        Customer customer = customerRepository.findById(requestDto.getCustomerId())
+            .orElseThrow(() -> new RuntimeException("Customer not found"));
+        
+        PurchasePhaseEvent orderInsertEvent = PurchasePhaseEvent.start(PurchasePhaseEvent.ORDER_INSERT);
+        Long orderId;
+        if (orderJournal.isEnabled()) {
+            orderId = journalOrder(customer, product, requestDto.getQuantity());
+        } else {
             Order order = OrderMapper.toEntity(requestDto, customer, product);
-            order = orderRepository.save(order);
-            
-            log.info("Created order {} for customer {} buying product {}", 
-                     order.getId(), customer.getId(), product.getId());
-            
-            return order.getId();
-        });
+            orderId = orderRepository.save(order).getId();
+        }
+        orderInsertEvent.finish(product.getId(), requestDto.getQuantity());
+        salesAggregateService.recordSale(product.getId(), customer.getId(), requestDto.getQuantity(), product.getPrice());
+        
+        log.atInfo()
+                .addMarker(LogMarkers.SAMPLED)
+                .addKeyValue("orderId", orderId)
+                .addKeyValue("customerId", customer.getId())
+                .addKeyValue("productId", product.getId())
+                .addKeyValue("quantity", requestDto.getQuantity())
+                .addKeyValue("stockRemaining", newQuantity)
+                .log("Created order {} for customer {} buying product {}", orderId, customer.getId(), product.getId());
+        
+        return orderId;
+    }
+
+    private List<PurchaseOutcome> purchaseBatchUnderLock(Product product, List<BuyProductRequestDto> requests) {
+        Inventory inventory = inventoryRepository.findByProductWithLock(product)
+            .orElseThrow(() -> new RuntimeException("Inventory not found"));
+        applyFencingToken(product, inventory);
+        Map<Long, Customer> customers = customerRepository.findAllById(
+                requests.stream().map(BuyProductRequestDto::getCustomerId).distinct().toList())
+            .stream()
+            .collect(Collectors.toMap(Customer::getId, Function.identity()));
+
+        List<PurchaseOutcome> outcomes = new ArrayList<>(requests.size());
+        int stock = inventory.getStockQuantity();
+        for (BuyProductRequestDto request : requests) {
+            Customer customer = customers.get(request.getCustomerId());
+            if (customer == null) {
+                outcomes.add(PurchaseOutcome.rejected("Customer not found"));
+                continue;
+            }
+            if (request.getQuantity() <= 0 || stock < request.getQuantity()) {
+                outcomes.add(PurchaseOutcome.rejected("Insufficient stock"));
+                continue;
+            }
+            stock -= request.getQuantity();
+            Long orderId = orderJournal.isEnabled()
+                    ? journalOrder(customer, product, request.getQuantity())
+                    : orderRepository.save(OrderMapper.toEntity(request, customer, product)).getId();
+            salesAggregateService.recordSale(product.getId(), customer.getId(), request.getQuantity(), product.getPrice());
+            outcomes.add(PurchaseOutcome.accepted(orderId));
+        }
+        inventory.setStockQuantity(stock);
+        inventoryRepository.save(inventory);
+        if (stock == 0)
+            soldOutService.markSoldOut(product.getId());
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+        catalogFeedService.record(CatalogDeltaDto.stock(product.getId(), stock));
+
+        log.atInfo()
+                .addMarker(LogMarkers.SAMPLED)
+                .addKeyValue("productId", product.getId())
+                .addKeyValue("batchSize", requests.size())
+                .addKeyValue("stockRemaining", stock)
+                .log("Processed batch of {} purchases for product {}, stock now {}", requests.size(), product.getId(), stock);
+        return outcomes;
+    }
+
+    private ProductResponseDto restockLedger(Product product, int quantity) {
+        int stock = inventoryLedgerService.restock(product.getId(), quantity);
+        if (stock > 0)
+            soldOutService.clear(product.getId());
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+        catalogFeedService.record(CatalogDeltaDto.stock(product.getId(), stock));
+        ProductResponseDto responseDto = ProductMapper.toResponseDto(product);
+        responseDto.setStockQuantity(stock);
+        return responseDto;
+    }
+
+    // Ledger mode: the product lock is not taken and the inventory row is only held in share
+    // mode, so concurrent sales of one product do not wait for each other. The sale is
+    // admitted against the running balance and appended as a movement
+    private Long purchaseFromLedger(Product product, BuyProductRequestDto requestDto) {
+        Customer customer = customerRepository.findById(requestDto.getCustomerId())
+            .orElseThrow(() -> new RuntimeException("Customer not found"));
+        int stock = inventoryLedgerService.reserve(product.getId(), requestDto.getQuantity());
+        Long orderId = placeOrder(customer, product, requestDto);
+        inventoryLedgerService.recordSale(product.getId(), requestDto.getQuantity(), orderId);
+        if (stock == 0)
+            soldOutService.markSoldOut(product.getId());
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+        catalogFeedService.record(CatalogDeltaDto.stock(product.getId(), stock));
+        salesAggregateService.recordSale(product.getId(), customer.getId(), requestDto.getQuantity(), product.getPrice());
+
+        log.atInfo()
+                .addMarker(LogMarkers.SAMPLED)
+                .addKeyValue("orderId", orderId)
+                .addKeyValue("customerId", customer.getId())
+                .addKeyValue("productId", product.getId())
+                .addKeyValue("quantity", requestDto.getQuantity())
+                .addKeyValue("stockRemaining", stock)
+                .log("Created order {} for customer {} buying product {}", orderId, customer.getId(), product.getId());
+        return orderId;
+    }
+
+    private List<PurchaseOutcome> purchaseBatchFromLedger(Product product, List<BuyProductRequestDto> requests) {
+        Map<Long, Customer> customers = customerRepository.findAllById(
+                requests.stream().map(BuyProductRequestDto::getCustomerId).distinct().toList())
+            .stream()
+            .collect(Collectors.toMap(Customer::getId, Function.identity()));
+
+        List<PurchaseOutcome> outcomes = new ArrayList<>(requests.size());
+        Integer stock = null;
+        for (BuyProductRequestDto request : requests) {
+            Customer customer = customers.get(request.getCustomerId());
+            if (customer == null) {
+                outcomes.add(PurchaseOutcome.rejected("Customer not found"));
+                continue;
+            }
+            OptionalInt reserved = inventoryLedgerService.tryReserve(product.getId(), request.getQuantity());
+            if (reserved.isEmpty()) {
+                outcomes.add(PurchaseOutcome.rejected("Insufficient stock"));
+                continue;
+            }
+            stock = reserved.getAsInt();
+            Long orderId = placeOrder(customer, product, request);
+            inventoryLedgerService.recordSale(product.getId(), request.getQuantity(), orderId);
+            salesAggregateService.recordSale(product.getId(), customer.getId(), request.getQuantity(), product.getPrice());
+            outcomes.add(PurchaseOutcome.accepted(orderId));
+        }
+        if (stock != null) {
+            if (stock == 0)
+                soldOutService.markSoldOut(product.getId());
+            eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+            catalogFeedService.record(CatalogDeltaDto.stock(product.getId(), stock));
+        }
+        return outcomes;
+    }
+
+    private Long placeOrder(Customer customer, Product product, BuyProductRequestDto requestDto) {
+        if (orderJournal.isEnabled())
+            return journalOrder(customer, product, requestDto.getQuantity());
+        return orderRepository.save(OrderMapper.toEntity(requestDto, customer, product)).getId();
+    }
+
+    // Runs with the inventory row locked. A leased-lock holder whose lease expired (crash, long
+    // pause) carries an older token than the holder that wrote the row after it, and is refused
+    private void applyFencingToken(Product product, Inventory inventory) {
+        OptionalLong token = lockService.currentFencingToken();
+        if (token.isEmpty())
+            return;
+        if (inventory.getFenceToken() > token.getAsLong()) {
+            // Also repairs the Redis counter in case it was lost and restarted below the stored token
+            lockService.advanceFencingToken(productLockKey(product.getId()), inventory.getFenceToken());
+            throw new StaleLockException("Lock for product " + product.getId() + " expired before the update");
+        }
+        inventory.setFenceToken(token.getAsLong());
+    }
+
+    public record PurchaseOutcome(Long orderId, String rejection) {
+        static PurchaseOutcome accepted(Long orderId) {
+            return new PurchaseOutcome(orderId, null);
+        }
+
+        static PurchaseOutcome rejected(String reason) {
+            return new PurchaseOutcome(null, reason);
+        }
+    }
+
+    // The order row is written later by the journal drainer; the record is made durable as part
+    // of the commit, so a committed stock decrement always has its order journaled
+    private Long journalOrder(Customer customer, Product product, int quantity) {
+        JournalRecord record = new JournalRecord(orderJournal.nextOrderId(), customer.getId(), product.getId(),
+                quantity, System.currentTimeMillis());
+        orderJournal.appendOnCommit(record);
+        return record.orderId();
     }
     
     private Product resolveProduct(Long id, String name) {
@@ -0,0 +1,344 @@
+package com.example.orderemanagement.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.example.orderemanagement.dto.BuyProductRequestDto;
+import com.example.orderemanagement.dto.PurchaseTicketDto;
+import com.example.orderemanagement.dto.PurchaseTicketDto.Status;
+import com.example.orderemanagement.exception.LoadSheddingException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Accepts buys into bounded per-product queues and answers with a ticket straight away.
+ * At most one worker drains a given product's queue at a time, taking up to
+ * {@code buy.async.batch-size} requests per lock acquisition. Ticket state lives in Redis
+ * so any node can answer a status poll; long-polls on the processing node are completed
+ * as soon as the ticket resolves, others by a periodic sweep. Accepted tickets are also
+ * listed in a Redis sorted set that their node keeps touching; tickets left there by a node
+ * that died are rejected by whichever node sweeps first. A ticket leaves PENDING only once,
+ * so a late outcome cannot overwrite that rejection. A product's queue is removed once it
+ * has drained.
+ * <p>
+ * Async buys are not routed to the product's owner node ({@code cluster.enabled}). Each
+ * batch takes the product lock once for up to {@code buy.async.batch-size} purchases, which
+ * already amortizes the Redis lock that ownership routing avoids; forwarding would instead
+ * add an HTTP hop to every submit, and the inventory row lock keeps batches from different
+ * nodes consistent.
+ */
+@Service
+@Slf4j
+public class PurchaseQueueService {
+    private static final String TICKET_KEY_PREFIX = "purchase:ticket:";
+    private static final String PENDING_KEY = "purchase:pending";
+    private static final RedisScript<Long> RESOLVE = RedisScript.of(new ClassPathResource("scripts/ticket-resolve.lua"), Long.class);
+
+    private record PendingPurchase(String ticketId, BuyProductRequestDto request) {
+    }
+
+    private static final class ProductQueue {
+        private final BlockingQueue<PendingPurchase> requests;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private ProductQueue(int capacity) {
+            this.requests = new LinkedBlockingQueue<>(capacity);
+        }
+    }
+
+    private final ProductService productService;
+    private final SoldOutService soldOutService;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService workers;
+    private final Map<Long, ProductQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, Set<DeferredResult<PurchaseTicketDto>>> waiters = new ConcurrentHashMap<>();
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalQueued = new AtomicInteger();
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long lockTimeoutMillis;
+    private final long ticketTtlSeconds;
+    private final long maxWaitMillis;
+    private final long retryAfterSeconds;
+    private final long orphanAfterMillis;
+
+    public PurchaseQueueService(ProductService productService,
+                                SoldOutService soldOutService,
+                                RedisTemplate<String, String> redisTemplate,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${buy.async.queue-capacity:1000}") int queueCapacity,
+                                @Value("${buy.async.batch-size:50}") int batchSize,
+                                @Value("${buy.async.workers:8}") int workerCount,
+                                @Value("${buy.async.lock-timeout-ms:10000}") long lockTimeoutMillis,
+                                @Value("${buy.async.ticket-ttl-seconds:3600}") long ticketTtlSeconds,
+                                @Value("${buy.async.max-wait-ms:30000}") long maxWaitMillis,
+                                @Value("${buy.admission.retry-after-seconds:1}") long retryAfterSeconds,
+                                @Value("${buy.async.orphan-after-ms:30000}") long orphanAfterMillis) {
+        this.productService = productService;
+        this.soldOutService = soldOutService;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.workers = Executors.newFixedThreadPool(workerCount, Thread.ofPlatform().name("purchase-worker-", 0).factory());
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.lockTimeoutMillis = lockTimeoutMillis;
+        this.ticketTtlSeconds = ticketTtlSeconds;
+        this.maxWaitMillis = maxWaitMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.orphanAfterMillis = orphanAfterMillis;
+        Gauge.builder("buy.async.queue.depth", totalQueued, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    public PurchaseTicketDto submit(BuyProductRequestDto requestDto) {
+        soldOutService.rejectIfSoldOut(requestDto.getProductId());
+        Long productId = productService.resolveProductId(requestDto.getProductId(), requestDto.getProductName());
+        soldOutService.rejectIfSoldOut(productId);
+        PurchaseTicketDto ticket = new PurchaseTicketDto(UUID.randomUUID().toString(), Status.PENDING, productId, null, null);
+        // Listed before the ticket is stored so a crash in between leaves nothing unaccounted for,
+        // and stored before enqueueing so a fast worker never resolves a ticket that does not exist yet
+        held.add(ticket.getTicketId());
+        redisTemplate.opsForZSet().add(PENDING_KEY, ticket.getTicketId(), System.currentTimeMillis());
+        save(ticket);
+
+        // Offered inside compute so a drained queue cannot be removed between lookup and offer
+        PendingPurchase pending = new PendingPurchase(ticket.getTicketId(), requestDto);
+        AtomicBoolean accepted = new AtomicBoolean();
+        ProductQueue queue = queues.compute(productId, (id, existing) -> {
+            ProductQueue productQueue = existing != null ? existing : new ProductQueue(queueCapacity);
+            accepted.set(productQueue.requests.offer(pending));
+            return productQueue;
+        });
+        if (!accepted.get()) {
+            held.remove(ticket.getTicketId());
+            redisTemplate.opsForZSet().remove(PENDING_KEY, ticket.getTicketId());
+            redisTemplate.delete(TICKET_KEY_PREFIX + ticket.getTicketId());
+            meterRegistry.counter("buy.async.tickets", "outcome", "shed").increment();
+            throw new LoadSheddingException("Purchase queue for this product is full, retry later",
+                    HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds);
+        }
+        totalQueued.incrementAndGet();
+        schedule(productId, queue);
+        return ticket;
+    }
+
+    public PurchaseTicketDto getTicket(String ticketId) {
+        String json = redisTemplate.opsForValue().get(TICKET_KEY_PREFIX + ticketId);
+        if (json == null)
+            throw new RuntimeException("Purchase ticket not found");
+        try {
+            return objectMapper.readValue(json, PurchaseTicketDto.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Corrupt purchase ticket " + ticketId, e);
+        }
+    }
+
+    /** Resolves when the ticket leaves PENDING or after {@code waitMillis}, whichever comes first. */
+    public DeferredResult<PurchaseTicketDto> awaitTicket(String ticketId, long waitMillis) {
+        PurchaseTicketDto current = getTicket(ticketId);
+        long timeout = Math.min(Math.max(waitMillis, 0), maxWaitMillis);
+        DeferredResult<PurchaseTicketDto> result = new DeferredResult<>(timeout, () -> getTicket(ticketId));
+        if (current.getStatus() != Status.PENDING || timeout == 0) {
+            result.setResult(current);
+            return result;
+        }
+        Set<DeferredResult<PurchaseTicketDto>> ticketWaiters =
+                waiters.computeIfAbsent(ticketId, id -> ConcurrentHashMap.newKeySet());
+        ticketWaiters.add(result);
+        result.onCompletion(() -> ticketWaiters.remove(result));
+        // The ticket may have resolved between the read above and registering the waiter
+        PurchaseTicketDto latest = getTicket(ticketId);
+        if (latest.getStatus() != Status.PENDING)
+            result.setResult(latest);
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${buy.async.sweep-interval-ms:250}")
+    public void sweepWaiters() {
+        waiters.entrySet().removeIf(entry -> entry.getValue().isEmpty());
+        waiters.forEach((ticketId, ticketWaiters) -> {
+            try {
+                PurchaseTicketDto ticket = getTicket(ticketId);
+                if (ticket.getStatus() != Status.PENDING)
+                    complete(ticket);
+            } catch (Exception e) {
+                log.debug("Could not check purchase ticket {}", ticketId, e);
+            }
+        });
+    }
+
+    /**
+     * Marks this node's tickets as alive, then rejects tickets nobody has touched for
+     * {@code buy.async.orphan-after-ms}: their node died before resolving them.
+     */
+    @Scheduled(fixedDelayString = "${buy.async.pending-refresh-ms:5000}")
+    public void refreshPending() {
+        try {
+            long now = System.currentTimeMillis();
+            Set<ZSetOperations.TypedTuple<String>> alive = new HashSet<>();
+            held.forEach(ticketId -> alive.add(ZSetOperations.TypedTuple.of(ticketId, (double) now)));
+            if (!alive.isEmpty())
+                redisTemplate.opsForZSet().add(PENDING_KEY, alive);
+            Set<String> stale = redisTemplate.opsForZSet().rangeByScore(PENDING_KEY, 0, now - orphanAfterMillis);
+            if (stale == null)
+                return;
+            for (String ticketId : stale) {
+                // Removing the entry is the claim; only one node gets to reject each orphan
+                Long removed = redisTemplate.opsForZSet().remove(PENDING_KEY, ticketId);
+                if (!held.contains(ticketId) && removed != null && removed > 0)
+                    rejectOrphan(ticketId);
+            }
+        } catch (Exception e) {
+            log.warn("Could not refresh pending purchase tickets", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(lockTimeoutMillis, TimeUnit.MILLISECONDS))
+            log.warn("Purchase workers did not finish within {} ms; {} purchases left pending",
+                    lockTimeoutMillis, totalQueued.get());
+        // Never started, so rejecting them is safe and saves clients waiting for the orphan sweep
+        queues.forEach((productId, queue) -> {
+            List<PendingPurchase> left = new ArrayList<>();
+            queue.requests.drainTo(left);
+            totalQueued.addAndGet(-left.size());
+            left.forEach(pending -> resolve(pending.ticketId(), productId, null, "Purchase was not processed before shutdown, retry"));
+        });
+    }
+
+    private void rejectOrphan(String ticketId) {
+        PurchaseTicketDto ticket;
+        try {
+            ticket = getTicket(ticketId);
+        } catch (RuntimeException e) {
+            return;
+        }
+        if (ticket.getStatus() != Status.PENDING)
+            return;
+        if (saveResolved(new PurchaseTicketDto(ticketId, Status.REJECTED, ticket.getProductId(), null,
+                "Purchase was interrupted; check order history before retrying"))) {
+            log.warn("Rejected purchase ticket {} abandoned by its node", ticketId);
+            meterRegistry.counter("buy.async.tickets", "outcome", "orphaned").increment();
+        }
+    }
+
+    private void schedule(Long productId, ProductQueue queue) {
+        if (!queue.scheduled.compareAndSet(false, true))
+            return;
+        try {
+            workers.execute(() -> drainBatch(productId, queue));
+        } catch (RejectedExecutionException e) {
+            queue.scheduled.set(false);
+            log.warn("Purchase workers are shut down; queued purchases for product {} stay pending", productId);
+        }
+    }
+
+    // Processes one batch, then yields the worker so busy products cannot starve others
+    private void drainBatch(Long productId, ProductQueue queue) {
+        List<PendingPurchase> batch = new ArrayList<>(batchSize);
+        queue.requests.drainTo(batch, batchSize);
+        totalQueued.addAndGet(-batch.size());
+        if (!batch.isEmpty())
+            process(productId, batch);
+        queue.scheduled.set(false);
+        if (!queue.requests.isEmpty())
+            schedule(productId, queue);
+        else
+            queues.computeIfPresent(productId, (id, current) ->
+                    current == queue && current.requests.isEmpty() && !current.scheduled.get() ? null : current);
+    }
+
+    private void process(Long productId, List<PendingPurchase> batch) {
+        List<ProductService.PurchaseOutcome> outcomes;
+        try {
+            outcomes = productService.buyProductBatch(productId,
+                    batch.stream().map(PendingPurchase::request).toList(), lockTimeoutMillis);
+        } catch (Exception e) {
+            log.warn("Batch of {} purchases for product {} failed", batch.size(), productId, e);
+            String message = e.getMessage() == null ? "Purchase could not be processed" : e.getMessage();
+            batch.forEach(pending -> resolve(pending.ticketId(), productId, null, message));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++)
+            resolve(batch.get(i).ticketId(), productId, outcomes.get(i).orderId(), outcomes.get(i).rejection());
+    }
+
+    private void resolve(String ticketId, Long productId, Long orderId, String rejection) {
+        Status status = orderId != null ? Status.COMPLETED : Status.REJECTED;
+        PurchaseTicketDto ticket = new PurchaseTicketDto(ticketId, status, productId, orderId, rejection);
+        held.remove(ticketId);
+        try {
+            if (saveResolved(ticket)) {
+                meterRegistry.counter("buy.async.tickets", "outcome", status.name().toLowerCase()).increment();
+            } else {
+                // Already rejected as an orphan; waiters get that answer, which tells them to check history
+                log.warn("Purchase ticket {} was resolved before its outcome {} arrived", ticketId, ticket);
+                meterRegistry.counter("buy.async.tickets", "outcome", "late").increment();
+                ticket = getTicket(ticketId);
+            }
+            redisTemplate.opsForZSet().remove(PENDING_KEY, ticketId);
+        } catch (Exception e) {
+            log.error("Could not store outcome of purchase ticket {}: {}", ticketId, ticket, e);
+        }
+        complete(ticket);
+    }
+
+    private void complete(PurchaseTicketDto ticket) {
+        Set<DeferredResult<PurchaseTicketDto>> ticketWaiters = waiters.remove(ticket.getTicketId());
+        if (ticketWaiters != null)
+            ticketWaiters.forEach(waiter -> waiter.setResult(ticket));
+    }
+
+    private boolean saveResolved(PurchaseTicketDto ticket) {
+        try {
+            Long written = redisTemplate.execute(RESOLVE, List.of(TICKET_KEY_PREFIX + ticket.getTicketId()),
+                    objectMapper.writeValueAsString(ticket), String.valueOf(ticketTtlSeconds));
+            return written != null && written == 1;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize purchase ticket", e);
+        }
+    }
+
+    private void save(PurchaseTicketDto ticket) {
+        try {
+            redisTemplate.opsForValue().set(TICKET_KEY_PREFIX + ticket.getTicketId(),
+                    objectMapper.writeValueAsString(ticket), ticketTtlSeconds, TimeUnit.SECONDS);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize purchase ticket", e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.orderemanagement.service;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.example.orderemanagement.exception.LoadSheddingException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Distributed token-bucket rate limiter. Buckets live in Redis and are updated by a Lua
+ * script; each node leases a small batch of tokens per key and remembers keys that are
+ * currently throttled, so most decisions are made locally without a Redis round trip.
+ */
+@Service
+@Slf4j
+public class RateLimitService {
+    private static final long LEASE_MILLIS = 1000;
+    private static final int MAX_LOCAL_ENTRIES = 100_000;
+
+    public enum Route {
+        BUY("buy"),
+        LOGIN("login");
+
+        private final String key;
+
+        Route(String key) {
+            this.key = key;
+        }
+    }
+
+    private record Rule(int capacity, double refillPerSecond, int batch) {
+    }
+
+    private static class LocalBucket {
+        private final AtomicInteger leasedTokens = new AtomicInteger();
+        private volatile long leaseExpiresAt;
+        private volatile long blockedUntil;
+    }
+
+    private final RedisTemplate<String, String> redisTemplate;
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> tokenBucketScript;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final boolean trustClientAddress;
+    private final Map<Route, Rule> rules;
+    private final Map<String, LocalBucket> localBuckets = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("rawtypes")
+    public RateLimitService(RedisTemplate<String, String> redisTemplate,
+                            RedisScript<List> tokenBucketScript,
+                            MeterRegistry meterRegistry,
+                            @Value("${rate-limit.enabled:true}") boolean enabled,
+                            @Value("${rate-limit.buy.capacity:20}") int buyCapacity,
+                            @Value("${rate-limit.buy.refill-per-second:10}") double buyRefillPerSecond,
+                            @Value("${rate-limit.buy.local-batch:5}") int buyBatch,
+                            @Value("${rate-limit.login.capacity:10}") int loginCapacity,
+                            @Value("${rate-limit.login.refill-per-second:0.2}") double loginRefillPerSecond,
+                            @Value("${rate-limit.login.local-batch:1}") int loginBatch,
+                            @Value("${server.forward-headers-strategy:none}") String forwardHeadersStrategy) {
+        this.redisTemplate = redisTemplate;
+        this.tokenBucketScript = tokenBucketScript;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        // Behind a proxy the remote address is the proxy's unless forwarded headers are applied
+        this.trustClientAddress = !"none".equalsIgnoreCase(forwardHeadersStrategy);
+        this.rules = Map.of(
+                Route.BUY, rule(Route.BUY, buyCapacity, buyRefillPerSecond, buyBatch),
+                Route.LOGIN, rule(Route.LOGIN, loginCapacity, loginRefillPerSecond, loginBatch));
+    }
+
+    // The bucket script divides by the refill rate, so a zero rate would fail every request
+    private static Rule rule(Route route, int capacity, double refillPerSecond, int batch) {
+        if (capacity <= 0 || refillPerSecond <= 0 || batch <= 0)
+            throw new IllegalArgumentException("rate-limit." + route.key
+                    + " capacity, refill-per-second and local-batch must be positive");
+        return new Rule(capacity, refillPerSecond, Math.min(batch, capacity));
+    }
+
+    public void checkLimit(Route route, String subject) {
+        if (!enabled || subject == null)
+            return;
+        if (!tryAcquire(route, subject)) {
+            LocalBucket bucket = localBuckets.get(bucketKey(route, subject));
+            long waitMillis = bucket == null ? 1000 : Math.max(0, bucket.blockedUntil - System.currentTimeMillis());
+            throw new LoadSheddingException("Rate limit exceeded, retry later",
+                    HttpStatus.TOO_MANY_REQUESTS, Math.max(1, (waitMillis + 999) / 1000));
+        }
+    }
+
+    /**
+     * Limits purchases per authenticated user, or per client address for anonymous requests.
+     * The customer id in the request body is not used: a client could spread its purchases
+     * over other ids or exhaust another customer's bucket.
+     */
+    public void checkBuy(Principal principal, String clientAddress) {
+        if (principal != null)
+            checkLimit(Route.BUY, "user:" + principal.getName());
+        else
+            checkLimit(Route.BUY, "address:" + clientAddress);
+    }
+
+    /**
+     * Limits login attempts per account and, when the client address is trustworthy, per
+     * address as well. Keying on the address alone would put every client behind the load
+     * balancer into one bucket.
+     */
+    public void checkLogin(String email, String clientAddress) {
+        if (email != null)
+            checkLimit(Route.LOGIN, "email:" + email.trim().toLowerCase(Locale.ROOT));
+        if (trustClientAddress)
+            checkLimit(Route.LOGIN, "address:" + clientAddress);
+    }
+
+    private boolean tryAcquire(Route route, String subject) {
+        String key = bucketKey(route, subject);
+        long now = System.currentTimeMillis();
+        LocalBucket bucket = localBuckets.computeIfAbsent(key, k -> new LocalBucket());
+
+        if (now < bucket.blockedUntil) {
+            record(route, "rejected", "local");
+            return false;
+        }
+        if (now < bucket.leaseExpiresAt && bucket.leasedTokens.getAndUpdate(t -> t > 0 ? t - 1 : 0) > 0) {
+            record(route, "allowed", "local");
+            return true;
+        }
+
+        Rule rule = rules.get(route);
+        List<?> result;
+        try {
+            result = redisTemplate.execute(tokenBucketScript, List.of(key),
+                    String.valueOf(rule.capacity()), String.valueOf(rule.refillPerSecond()),
+                    String.valueOf(rule.batch()));
+        } catch (Exception e) {
+            log.warn("Rate limiter unavailable for key {}, allowing request", key, e);
+            record(route, "allowed", "fail_open");
+            return true;
+        }
+        evictIdleBuckets(now);
+
+        long granted = ((Number) result.get(0)).longValue();
+        if (granted > 0) {
+            bucket.leasedTokens.set((int) granted - 1);
+            bucket.leaseExpiresAt = now + LEASE_MILLIS;
+            record(route, "allowed", "redis");
+            return true;
+        }
+        bucket.blockedUntil = now + ((Number) result.get(1)).longValue();
+        record(route, "rejected", "redis");
+        return false;
+    }
+
+    private void evictIdleBuckets(long now) {
+        if (localBuckets.size() > MAX_LOCAL_ENTRIES)
+            localBuckets.values().removeIf(b -> b.leaseExpiresAt < now && b.blockedUntil < now);
+    }
+
+    private void record(Route route, String outcome, String source) {
+        meterRegistry.counter("rate.limit.decisions", "route", route.key, "outcome", outcome, "source", source)
+                .increment();
+    }
+
+    private static String bucketKey(Route route, String subject) {
+        return "rate-limit:" + route.key + ":" + subject;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.orderemanagement.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bloom filter over registered customer emails. A negative answer means the email is
+ * certainly not taken on this node's view, so registration can skip the duplicate-check
+ * query; the unique constraint on {@code customers.email} still catches emails registered
+ * through other nodes since this node's filter was loaded. Until loading finishes, every
+ * email is reported as possibly present.
+ */
+@Service
+@Slf4j
+public class RegisteredEmailFilter {
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean loaded;
+
+    public RegisteredEmailFilter(JdbcTemplate jdbcTemplate,
+                                 @Value("${auth.email-filter.expected-emails:1000000}") long expectedEmails,
+                                 @Value("${auth.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        long optimalBits = (long) Math.ceil(-expectedEmails * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = words * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEmails * Math.log(2)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long[] count = new long[1];
+        jdbcTemplate.query("SELECT email FROM customers", rs -> {
+            add(rs.getString(1));
+            count[0]++;
+        });
+        loaded = true;
+        log.info("Loaded {} customer emails into the registration filter ({} bits, {} hashes)",
+                count[0], bitCount, hashCount);
+    }
+
+    public boolean mightContain(String email) {
+        if (!loaded)
+            return true;
+        long hash = hash(email);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    public void add(String email) {
+        long hash = hash(email);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask))
+                ;
+        }
+    }
+
+    // FNV-1a over the normalized address, finished with the MurmurHash3 64-bit mixer
+    private static long hash(String email) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : email.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.orderemanagement.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.orderemanagement.dto.CustomerSpendDto;
+import com.example.orderemanagement.dto.TopSellerDto;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Best-seller and lifetime-spend aggregates maintained incrementally from committed
+ * purchases. Each node accumulates deltas in memory and periodically folds them into Redis
+ * sorted sets, so lookups never scan the orders table. Every flush carries an id that Redis
+ * remembers, so a flush retried after an error is applied at most once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SalesAggregateService {
+    private static final String TOP_PRODUCTS_KEY = "sales:top-products";
+    private static final String CUSTOMER_SPEND_KEY = "sales:customer-spend-cents";
+    private static final String FLUSH_PREFIX = "sales:flush:";
+    private static final long FLUSH_MARKER_TTL_SECONDS = 86_400;
+    private static final RedisScript<Long> FLUSH = RedisScript.of(new ClassPathResource("scripts/sales-flush.lua"), Long.class);
+
+    private record Flush(String id, Map<Long, Long> units, Map<Long, Long> spendCents) {
+    }
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final Map<Long, Long> pendingUnits = new ConcurrentHashMap<>();
+    private final Map<Long, Long> pendingSpendCents = new ConcurrentHashMap<>();
+    // A flush that failed; retried with the same id before anything new is sent
+    private Flush unconfirmed;
+
+    public void recordSale(Long productId, Long customerId, int quantity, Double unitPrice) {
+        long spendCents = Math.round((unitPrice == null ? 0 : unitPrice) * 100) * quantity;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accumulate(productId, customerId, quantity, spendCents);
+                }
+            });
+        } else {
+            accumulate(productId, customerId, quantity, spendCents);
+        }
+    }
+
+    private void accumulate(Long productId, Long customerId, long quantity, long spendCents) {
+        pendingUnits.merge(productId, quantity, Long::sum);
+        pendingSpendCents.merge(customerId, spendCents, Long::sum);
+    }
+
+    @Scheduled(fixedDelayString = "${sales.aggregates.flush-interval-ms:1000}")
+    @PreDestroy
+    public synchronized void flush() {
+        if (unconfirmed == null) {
+            Map<Long, Long> units = drain(pendingUnits);
+            Map<Long, Long> spend = drain(pendingSpendCents);
+            if (units.isEmpty() && spend.isEmpty())
+                return;
+            unconfirmed = new Flush(UUID.randomUUID().toString(), units, spend);
+        }
+        try {
+            redisTemplate.execute(FLUSH, List.of(TOP_PRODUCTS_KEY, CUSTOMER_SPEND_KEY, FLUSH_PREFIX + unconfirmed.id()),
+                    arguments(unconfirmed).toArray());
+            unconfirmed = null;
+        } catch (Exception e) {
+            log.warn("Could not flush sales aggregates, retrying {} product and {} customer deltas",
+                    unconfirmed.units().size(), unconfirmed.spendCents().size(), e);
+        }
+    }
+
+    public List<TopSellerDto> getTopSellers(int limit) {
+        Set<ZSetOperations.TypedTuple<String>> top = redisTemplate.opsForZSet()
+                .reverseRangeWithScores(TOP_PRODUCTS_KEY, 0, Math.max(0, limit - 1));
+        List<TopSellerDto> result = new ArrayList<>();
+        if (top != null)
+            top.forEach(tuple -> result.add(new TopSellerDto(Long.valueOf(tuple.getValue()),
+                    tuple.getScore() == null ? 0 : tuple.getScore().longValue())));
+        return result;
+    }
+
+    public CustomerSpendDto getCustomerSpend(Long customerId) {
+        Double score = redisTemplate.opsForZSet().score(CUSTOMER_SPEND_KEY, customerId.toString());
+        return new CustomerSpendDto(customerId, score == null ? 0 : score / 100.0);
+    }
+
+    private static List<String> arguments(Flush flush) {
+        List<String> arguments = new ArrayList<>(2 + 2 * (flush.units().size() + flush.spendCents().size()));
+        arguments.add(String.valueOf(FLUSH_MARKER_TTL_SECONDS));
+        arguments.add(String.valueOf(flush.units().size()));
+        flush.units().forEach((productId, units) -> {
+            arguments.add(productId.toString());
+            arguments.add(units.toString());
+        });
+        flush.spendCents().forEach((customerId, cents) -> {
+            arguments.add(customerId.toString());
+            arguments.add(cents.toString());
+        });
+        return arguments;
+    }
+
+    // Entries are removed as they are drained, so the maps only hold keys with unflushed sales
+    private static Map<Long, Long> drain(Map<Long, Long> counters) {
+        Map<Long, Long> drained = new HashMap<>();
+        for (Long id : List.copyOf(counters.keySet())) {
+            Long value = counters.remove(id);
+            if (value != null && value != 0)
+                drained.put(id, value);
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.orderemanagement.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cluster-wide set of products whose stock is zero. The Redis set is the shared copy; every
+ * node mirrors it locally, kept current through pub/sub and a periodic resync, so a buy for
+ * a sold-out product is rejected without touching the lock or the database. The resync also
+ * drops markers whose stock is no longer zero, bounding staleness if a restock and a sell-out
+ * commit in the opposite order to their notifications.
+ */
+@Service
+@Slf4j
+public class SoldOutService {
+    private static final String SOLD_OUT_KEY = "inventory:sold-out";
+    private static final String CHANNEL = "inventory:sold-out:events";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final InventoryLedgerService inventoryLedgerService;
+    private final Counter rejectedCounter;
+    private final Set<Long> soldOut = ConcurrentHashMap.newKeySet();
+
+    public SoldOutService(RedisTemplate<String, String> redisTemplate,
+                          RedisMessageListenerContainer listenerContainer,
+                          InventoryLedgerService inventoryLedgerService,
+                          MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.inventoryLedgerService = inventoryLedgerService;
+        this.rejectedCounter = Counter.builder("buy.sold_out.rejected").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody());
+            Long productId = Long.valueOf(body.substring(1));
+            if (body.charAt(0) == '+')
+                soldOut.add(productId);
+            else
+                soldOut.remove(productId);
+        }, new ChannelTopic(CHANNEL));
+    }
+
+    public boolean isSoldOut(Long productId) {
+        return productId != null && soldOut.contains(productId);
+    }
+
+    public void rejectIfSoldOut(Long productId) {
+        if (isSoldOut(productId)) {
+            rejectedCounter.increment();
+            throw new RuntimeException("Insufficient stock");
+        }
+    }
+
+    /** Marks the product sold out once the current transaction commits. */
+    public void markSoldOut(Long productId) {
+        afterCommit(() -> {
+            // Re-check: a restock may have committed between our commit and this callback
+            Integer stock = inventoryLedgerService.currentStock(List.of(productId)).get(productId);
+            if (stock == null || stock > 0)
+                return;
+            soldOut.add(productId);
+            publish(productId, true);
+        });
+    }
+
+    /** Clears the marker once the current transaction commits. */
+    public void clear(Long productId) {
+        afterCommit(() -> {
+            soldOut.remove(productId);
+            publish(productId, false);
+        });
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${sold-out.resync-interval-ms:5000}")
+    public void resync() {
+        try {
+            Set<Long> shared = members();
+            if (!shared.isEmpty()) {
+                Set<Long> restocked = inventoryLedgerService.currentStock(shared).entrySet().stream()
+                        .filter(stock -> stock.getValue() > 0)
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toSet());
+                if (!restocked.isEmpty()) {
+                    redisTemplate.opsForSet().remove(SOLD_OUT_KEY, restocked.stream().map(String::valueOf).toArray());
+                    shared.removeAll(restocked);
+                }
+            }
+            soldOut.retainAll(shared);
+            soldOut.addAll(shared);
+        } catch (Exception e) {
+            log.warn("Could not resync sold-out products", e);
+        }
+    }
+
+    private Set<Long> members() {
+        Set<String> members = redisTemplate.opsForSet().members(SOLD_OUT_KEY);
+        if (members == null)
+            return ConcurrentHashMap.newKeySet();
+        return members.stream().map(Long::valueOf).collect(Collectors.toCollection(ConcurrentHashMap::newKeySet));
+    }
+
+    private void publish(Long productId, boolean isSoldOut) {
+        try {
+            if (isSoldOut)
+                redisTemplate.opsForSet().add(SOLD_OUT_KEY, productId.toString());
+            else
+                redisTemplate.opsForSet().remove(SOLD_OUT_KEY, productId.toString());
+            redisTemplate.convertAndSend(CHANNEL, (isSoldOut ? "+" : "-") + productId);
+        } catch (Exception e) {
+            // Other nodes catch up on the next resync
+            log.warn("Could not publish sold-out state of product {}", productId, e);
+        }
+    }
+
+    // The marker is an optimization, so failures are logged rather than failing the committed purchase
+    private static void afterCommit(Runnable action) {
+        Runnable guarded = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("Could not update sold-out marker", e);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            guarded.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                guarded.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.orderemanagement.service;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.orderemanagement.dto.BuyProductRequestDto;
+import com.example.orderemanagement.dto.ProductResponseDto;
+import com.example.orderemanagement.dto.StockAvailabilityRequestDto;
+import com.example.orderemanagement.model.Customer;
+import com.example.orderemanagement.repository.CustomerRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exercises the hot paths before the instance reports ready. Application runners complete
+ * before Spring Boot publishes {@code ReadinessState.ACCEPTING_TRAFFIC}, so
+ * {@code /actuator/health/readiness} stays OUT_OF_SERVICE until this returns. Catalog reads
+ * and rolled-back purchases are repeated in rounds until a round adds less than
+ * {@code warmup.settle-threshold-ms} of JIT compilation time, or the time budget runs out.
+ */
+@Service
+@Slf4j
+public class WarmupService implements ApplicationRunner {
+    private static final int UNMEASURED_ROUNDS = 10;
+
+    private final ProductService productService;
+    private final CustomerRepository customerRepository;
+    private final DataSource dataSource;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate rollbackTemplate;
+    private final boolean enabled;
+    private final long maxDurationMillis;
+    private final int roundIterations;
+    private final long settleThresholdMillis;
+    private final int poolConnections;
+    private final boolean warmBuys;
+
+    public WarmupService(ProductService productService,
+                         CustomerRepository customerRepository,
+                         DataSource dataSource,
+                         RedisTemplate<String, String> redisTemplate,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         PlatformTransactionManager transactionManager,
+                         InventoryLedgerService inventoryLedgerService,
+                         @Value("${warmup.enabled:true}") boolean enabled,
+                         @Value("${warmup.max-duration-ms:30000}") long maxDurationMillis,
+                         @Value("${warmup.round-iterations:50}") int roundIterations,
+                         @Value("${warmup.settle-threshold-ms:20}") long settleThresholdMillis,
+                         @Value("${warmup.pool-connections:10}") int poolConnections,
+                         @Value("${warmup.buys:false}") boolean warmBuys) {
+        this.productService = productService;
+        this.customerRepository = customerRepository;
+        this.dataSource = dataSource;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.rollbackTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxDurationMillis = maxDurationMillis;
+        this.roundIterations = roundIterations;
+        this.settleThresholdMillis = settleThresholdMillis;
+        this.poolConnections = poolConnections;
+        // A ledger reservation is a Redis script outside the transaction, so it is not rolled back
+        this.warmBuys = warmBuys && !inventoryLedgerService.isEnabled();
+        if (warmBuys && !this.warmBuys)
+            log.info("Skipping warm-up purchases: inventory.mode=ledger");
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled)
+            return;
+        long started = System.nanoTime();
+        try {
+            primeConnectionPool();
+            primeRedis();
+            int rounds = exerciseUntilSettled(started + TimeUnit.MILLISECONDS.toNanos(maxDurationMillis));
+            log.info("Warm-up finished after {} rounds in {} ms", rounds,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (Exception e) {
+            // A failed warm-up must not keep the instance out of rotation forever
+            log.warn("Warm-up aborted", e);
+        } finally {
+            meterRegistry.timer("app.warmup").record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Holds connections concurrently so Hikari establishes them now rather than on first requests
+    private void primeConnectionPool() throws InterruptedException {
+        ExecutorService borrowers = Executors.newFixedThreadPool(poolConnections);
+        CountDownLatch held = new CountDownLatch(poolConnections);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < poolConnections; i++) {
+                borrowers.execute(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        connection.isValid(1);
+                        held.countDown();
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        held.countDown();
+                        log.debug("Could not prime database connection", e);
+                    }
+                });
+            }
+            held.await(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            borrowers.shutdown();
+            borrowers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void primeRedis() {
+        for (int i = 0; i < 10; i++)
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.ping());
+    }
+
+    private int exerciseUntilSettled(long deadline) throws Exception {
+        Optional<Long> customerId = customerRepository.findAll(PageRequest.of(0, 1)).stream()
+                .map(Customer::getId)
+                .findFirst();
+        CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+        boolean canMeasure = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+
+        int rounds = 0;
+        long previousCompileMillis = canMeasure ? compiler.getTotalCompilationTime() : 0;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < roundIterations; i++) {
+                List<ProductResponseDto> products = exerciseCatalog();
+                if (warmBuys && customerId.isPresent())
+                    exerciseBuy(products, customerId.get());
+            }
+            rounds++;
+            if (!canMeasure) {
+                if (rounds >= UNMEASURED_ROUNDS)
+                    break;
+                continue;
+            }
+            long compileMillis = compiler.getTotalCompilationTime();
+            long delta = compileMillis - previousCompileMillis;
+            previousCompileMillis = compileMillis;
+            log.debug("Warm-up round {} added {} ms of JIT compilation", rounds, delta);
+            if (rounds > 1 && delta < settleThresholdMillis)
+                break;
+        }
+        return rounds;
+    }
+
+    private List<ProductResponseDto> exerciseCatalog() throws Exception {
+        List<ProductResponseDto> products = productService.getAllProducts();
+        objectMapper.writeValueAsBytes(products);
+        if (products.isEmpty())
+            return products;
+        ProductResponseDto first = products.get(0);
+        StockAvailabilityRequestDto availability = new StockAvailabilityRequestDto();
+        availability.setProductIds(products.stream().limit(50).map(ProductResponseDto::getId).toList());
+        objectMapper.writeValueAsBytes(productService.getStockAvailability(availability));
+        objectMapper.writeValueAsBytes(productService.getProductByName(first.getName()));
+        return products;
+    }
+
+    // Runs the full purchase path inside an outer transaction that is always rolled back; buyProduct
+    // joins it, so the stock update and order insert are discarded and no after-commit work runs
+    private void exerciseBuy(List<ProductResponseDto> products, Long customerId) {
+        products.stream()
+                .filter(product -> product.getStockQuantity() > 0)
+                .findFirst()
+                .ifPresent(product -> rollbackTemplate.executeWithoutResult(status -> {
+                    status.setRollbackOnly();
+                    BuyProductRequestDto requestDto = new BuyProductRequestDto();
+                    requestDto.setCustomerId(customerId);
+                    requestDto.setProductId(product.getId());
+                    requestDto.setQuantity(1);
+                    try {
+                        productService.buyProduct(requestDto);
+                    } catch (RuntimeException e) {
+                        log.debug("Warm-up purchase failed", e);
+                    }
+                }));
+    }
+}
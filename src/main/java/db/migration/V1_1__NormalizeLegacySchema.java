@@ -0,0 +1,118 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Brings databases created by {@code ddl-auto: update} and baselined at version 1 in line with
+ * {@code V1__create_schema.sql}. Hibernate gave unique keys and foreign keys generated names,
+ * and the original one-to-one order mapping left foreign keys and a unique key on
+ * {@code orders}. Every step checks the catalog first, so on a database created by V1 nothing
+ * changes. Only MySQL databases predate Flyway, so other databases are skipped.
+ */
+public class V1_1__NormalizeLegacySchema extends BaseJavaMigration {
+    private record Index(boolean unique, List<String> columns) {
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        if (!"MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()))
+            return;
+        try (Statement statement = connection.createStatement()) {
+            normalizeOrders(connection, statement);
+            normalizeInventories(connection, statement);
+            renameUniqueKey(connection, statement, "products", "name", "uk_products_name");
+            renameUniqueKey(connection, statement, "customers", "email", "uk_customers_email");
+            renameUniqueKey(connection, statement, "admins", "email", "uk_admins_email");
+        }
+    }
+
+    // MySQL does not allow foreign keys on partitioned tables, and an order's product is not unique
+    private void normalizeOrders(Connection connection, Statement statement) throws SQLException {
+        Set<String> foreignKeys = foreignKeys(connection, "orders");
+        for (String foreignKey : foreignKeys)
+            statement.execute("ALTER TABLE orders DROP FOREIGN KEY `" + foreignKey + "`");
+        Map<String, Index> indexes = indexes(connection, "orders");
+        for (Map.Entry<String, Index> index : indexes.entrySet()) {
+            // MySQL names the index it creates for a foreign key after the key
+            if (index.getValue().unique() || foreignKeys.contains(index.getKey()))
+                statement.execute("ALTER TABLE orders DROP INDEX `" + index.getKey() + "`");
+        }
+        if (!indexes.containsKey("idx_orders_customer_created"))
+            statement.execute("CREATE INDEX idx_orders_customer_created ON orders (customer_id, created_at)");
+    }
+
+    // The product id is already the primary key, so the one-to-one unique key is redundant
+    private void normalizeInventories(Connection connection, Statement statement) throws SQLException {
+        Set<String> foreignKeys = foreignKeys(connection, "inventories");
+        for (String foreignKey : foreignKeys) {
+            if (!foreignKey.equals("fk_inventories_product"))
+                statement.execute("ALTER TABLE inventories DROP FOREIGN KEY `" + foreignKey + "`");
+        }
+        for (Map.Entry<String, Index> index : indexes(connection, "inventories").entrySet()) {
+            if (index.getValue().unique())
+                statement.execute("ALTER TABLE inventories DROP INDEX `" + index.getKey() + "`");
+        }
+        if (!foreignKeys.contains("fk_inventories_product"))
+            statement.execute("ALTER TABLE inventories ADD CONSTRAINT fk_inventories_product "
+                    + "FOREIGN KEY (product_id) REFERENCES products (id)");
+    }
+
+    private void renameUniqueKey(Connection connection, Statement statement, String table, String column, String name)
+            throws SQLException {
+        Map<String, Index> indexes = indexes(connection, table);
+        if (indexes.containsKey(name))
+            return;
+        List<String> candidates = indexes.entrySet().stream()
+                .filter(index -> index.getValue().unique() && index.getValue().columns().equals(List.of(column)))
+                .map(Map.Entry::getKey)
+                .toList();
+        if (candidates.isEmpty()) {
+            statement.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + name + " UNIQUE (" + column + ")");
+            return;
+        }
+        statement.execute("ALTER TABLE " + table + " RENAME INDEX `" + candidates.get(0) + "` TO " + name);
+        for (String duplicate : candidates.subList(1, candidates.size()))
+            statement.execute("ALTER TABLE " + table + " DROP INDEX `" + duplicate + "`");
+    }
+
+    private static Set<String> foreignKeys(Connection connection, String table) throws SQLException {
+        Set<String> names = new LinkedHashSet<>();
+        try (ResultSet keys = connection.getMetaData().getImportedKeys(connection.getCatalog(), null, table)) {
+            while (keys.next())
+                names.add(keys.getString("FK_NAME"));
+        }
+        return names;
+    }
+
+    // Index name to uniqueness and columns in key order, without the primary key
+    private static Map<String, Index> indexes(Connection connection, String table) throws SQLException {
+        Map<String, Index> indexes = new LinkedHashMap<>();
+        try (ResultSet rows = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, table, false, false)) {
+            while (rows.next()) {
+                String name = rows.getString("INDEX_NAME");
+                if (name == null || name.equals("PRIMARY"))
+                    continue;
+                Index index = indexes.get(name);
+                if (index == null) {
+                    index = new Index(!rows.getBoolean("NON_UNIQUE"), new ArrayList<>());
+                    indexes.put(name, index);
+                }
+                index.columns().add(rows.getString("COLUMN_NAME"));
+            }
+        }
+        return indexes;
+    }
+}
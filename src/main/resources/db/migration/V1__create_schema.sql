@@ -0,0 +1,52 @@
+-- Baseline schema. Indexes are chosen for the hot lookups:
+--   inventories.product_id  InventoryRepository.findByProductWithLock (primary key, row lock only)
+--   uk_products_name        ProductRepository.findByName
+--   uk_customers_email      CustomerRepository.findByEmail
+--   idx_orders_customer_created  OrderRepository.findByCustomer and order history by date
+
+CREATE TABLE products (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    name        VARCHAR(255),
+    description TEXT,
+    price       DOUBLE,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_products_name UNIQUE (name)
+);
+
+CREATE TABLE inventories (
+    product_id     BIGINT NOT NULL AUTO_INCREMENT,
+    stock_quantity INT,
+    PRIMARY KEY (product_id),
+    CONSTRAINT fk_inventories_product FOREIGN KEY (product_id) REFERENCES products (id)
+);
+
+CREATE TABLE customers (
+    id       BIGINT       NOT NULL AUTO_INCREMENT,
+    name     VARCHAR(255),
+    email    VARCHAR(255) NOT NULL,
+    address  VARCHAR(255),
+    password VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_customers_email UNIQUE (email)
+);
+
+CREATE TABLE admins (
+    id       BIGINT       NOT NULL AUTO_INCREMENT,
+    name     VARCHAR(255) NOT NULL,
+    email    VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_admins_email UNIQUE (email)
+);
+
+-- No foreign keys: MySQL does not allow them on partitioned tables (see OrderPartitionService)
+CREATE TABLE orders (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    customer_id BIGINT,
+    product_id  BIGINT,
+    quantity    INT,
+    created_at  DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_orders_customer_created ON orders (customer_id, created_at);
@@ -0,0 +1,2 @@
+-- Highest fencing token that has written this row; see LeasedLockRegistry
+ALTER TABLE inventories ADD COLUMN fence_token BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,18 @@
+-- Append-only stock ledger used when inventory.mode=ledger (see InventoryLedgerService).
+-- inventories.stock_quantity becomes the snapshot of every movement up to ledger_position;
+-- availability is the snapshot plus the movements after it.
+CREATE TABLE inventory_movements (
+    id         BIGINT      NOT NULL AUTO_INCREMENT,
+    product_id BIGINT      NOT NULL,
+    type       VARCHAR(16) NOT NULL,
+    quantity   INT         NOT NULL,
+    order_id   BIGINT,
+    created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_inventory_movements_product FOREIGN KEY (product_id) REFERENCES products (id) ON DELETE CASCADE
+);
+
+-- Balance and compaction both read one product's movements after a position
+CREATE INDEX idx_inventory_movements_product ON inventory_movements (product_id, id);
+
+ALTER TABLE inventories ADD COLUMN ledger_position BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,24 @@
+-- Catalog feed append: KEYS[1] = retained log (sorted set scored by sequence),
+-- KEYS[2] = floor key (highest sequence trimmed from the log), KEYS[3] = sequence counter,
+-- KEYS[4] = hash of the highest appended version per product
+-- ARGV[1] = delta JSON without seq, ARGV[2] = deltas to retain, ARGV[3] = pub/sub channel,
+-- ARGV[4] = product id, ARGV[5] = delta version
+-- Numbering, logging and publishing happen together, so the log and the channel carry the
+-- same deltas in sequence order. Returns the sequence number
+local seq = redis.call('INCR', KEYS[3])
+-- The delta always has a type and product id, so the object is never empty
+local json = '{"seq":' .. seq .. ',' .. string.sub(ARGV[1], 2)
+redis.call('ZADD', KEYS[1], seq, json)
+local excess = redis.call('ZCARD', KEYS[1]) - tonumber(ARGV[2])
+if excess > 0 then
+    local last = redis.call('ZRANGE', KEYS[1], excess - 1, excess - 1, 'WITHSCORES')
+    redis.call('ZREMRANGEBYRANK', KEYS[1], 0, excess - 1)
+    if tonumber(last[2]) > tonumber(redis.call('GET', KEYS[2]) or '0') then
+        redis.call('SET', KEYS[2], last[2])
+    end
+end
+if tonumber(ARGV[5]) > tonumber(redis.call('HGET', KEYS[4], ARGV[4]) or '0') then
+    redis.call('HSET', KEYS[4], ARGV[4], ARGV[5])
+end
+redis.call('PUBLISH', ARGV[3], json)
+return seq
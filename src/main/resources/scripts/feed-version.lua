@@ -0,0 +1,13 @@
+-- Catalog feed version: KEYS[1] = hash of the latest version per product,
+-- KEYS[2] = the product's running stock balance (ledger mode only)
+-- ARGV[1] = product id
+-- Returns {version} or, when a balance is loaded, {version, balance}; reading both at once
+-- means a higher version never carries an older balance
+local version = redis.call('HINCRBY', KEYS[1], ARGV[1], 1)
+if KEYS[2] then
+    local balance = redis.call('GET', KEYS[2])
+    if balance then
+        return {version, tonumber(balance)}
+    end
+end
+return {version}
@@ -0,0 +1,9 @@
+-- Raises the fencing counter KEYS[1] to at least ARGV[1], e.g. after Redis lost it and the
+-- database already holds a higher token. Returns the counter value
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+local floor = tonumber(ARGV[1])
+if current < floor then
+    redis.call('SET', KEYS[1], floor)
+    return floor
+end
+return current
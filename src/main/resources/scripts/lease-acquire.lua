@@ -0,0 +1,7 @@
+-- Leased lock acquisition: KEYS[1] = lease key, KEYS[2] = fencing counter key
+-- ARGV[1] = owner id, ARGV[2] = lease duration (ms)
+-- Returns the new fencing token, or 0 when the lease is held by someone else
+if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+    return redis.call('INCR', KEYS[2])
+end
+return 0
@@ -0,0 +1,6 @@
+-- Deletes a lease only while ARGV[1] still owns it: KEYS[1] = lease key
+-- Returns 1 if released, 0 if it had already expired or been taken over
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
@@ -0,0 +1,6 @@
+-- Extends a lease only while ARGV[1] still owns it: KEYS[1] = lease key
+-- ARGV[1] = owner id, ARGV[2] = lease duration (ms). Returns 1 if renewed, 0 if the lease was lost
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return 0
@@ -0,0 +1,14 @@
+-- KEYS[1] running balance of one product, KEYS[2] its epoch
+-- ARGV[1] signed change, ARGV[2] epoch the change belongs to, or empty for the current one
+-- Only a loaded balance is changed; an unloaded one is read from the database when first
+-- needed. A change from an earlier epoch is dropped, since the reset that started the
+-- current epoch was computed from committed movements only.
+-- Returns {new balance, epoch}; the balance is -1 if it was not loaded, -3 if the epoch moved on
+local epoch = tonumber(redis.call('GET', KEYS[2]) or '0')
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return {-1, epoch}
+end
+if ARGV[2] ~= '' and tonumber(ARGV[2]) ~= epoch then
+    return {-3, epoch}
+end
+return {redis.call('INCRBY', KEYS[1], ARGV[1]), epoch}
@@ -0,0 +1,13 @@
+-- KEYS[1] running balance of one product, KEYS[2] its epoch (advanced whenever the balance is reset)
+-- ARGV[1] quantity to take
+-- Returns {balance left, epoch}; the balance is -1 if it has not been loaded, -2 if it is too low
+local epoch = tonumber(redis.call('GET', KEYS[2]) or '0')
+local balance = redis.call('GET', KEYS[1])
+if not balance then
+    return {-1, epoch}
+end
+local quantity = tonumber(ARGV[1])
+if tonumber(balance) < quantity then
+    return {-2, epoch}
+end
+return {redis.call('DECRBY', KEYS[1], quantity), epoch}
@@ -0,0 +1,13 @@
+-- KEYS[1] running balance of one product, KEYS[2] its epoch, KEYS[3] set of products with a loaded balance
+-- ARGV[1] stock read from the database, ARGV[2] 'load' (only set an unloaded balance) or
+-- 'reconcile' (only replace a loaded one), ARGV[3] product id
+-- Starts a new epoch so compensations of reservations made against the old balance are dropped.
+-- Returns the previous balance, or -1 when nothing was set
+local previous = redis.call('GET', KEYS[1])
+if (ARGV[2] == 'load' and previous) or (ARGV[2] == 'reconcile' and not previous) then
+    return -1
+end
+redis.call('SET', KEYS[1], ARGV[1])
+redis.call('INCR', KEYS[2])
+redis.call('SADD', KEYS[3], ARGV[3])
+return tonumber(previous or '-1')
@@ -0,0 +1,18 @@
+-- Applies one node's aggregate deltas exactly once.
+-- KEYS[1] = top products zset, KEYS[2] = customer spend zset, KEYS[3] = marker of this flush
+-- ARGV[1] = marker TTL (s), ARGV[2] = number of product pairs, then product/units pairs,
+-- then customer/cents pairs. Returns 0 if this flush was already applied
+if not redis.call('SET', KEYS[3], '1', 'NX', 'EX', ARGV[1]) then
+    return 0
+end
+local products = tonumber(ARGV[2])
+local i = 3
+for _ = 1, products do
+    redis.call('ZINCRBY', KEYS[1], ARGV[i + 1], ARGV[i])
+    i = i + 2
+end
+while i <= #ARGV do
+    redis.call('ZINCRBY', KEYS[2], ARGV[i + 1], ARGV[i])
+    i = i + 2
+end
+return 1
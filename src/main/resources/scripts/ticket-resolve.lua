@@ -0,0 +1,10 @@
+-- KEYS[1] purchase ticket
+-- ARGV[1] resolved ticket JSON, ARGV[2] ttl in seconds
+-- A ticket leaves PENDING once: a late worker cannot overwrite the orphan sweep's rejection,
+-- nor the sweep a completion. Returns 1 if written, 0 if the ticket was already resolved
+local current = redis.call('GET', KEYS[1])
+if current and cjson.decode(current)['status'] ~= 'PENDING' then
+    return 0
+end
+redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])
+return 1
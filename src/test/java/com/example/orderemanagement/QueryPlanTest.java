@@ -0,0 +1,105 @@
+package com.example.orderemanagement;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.orderemanagement.dto.AddProductRequestDto;
+import com.example.orderemanagement.model.Customer;
+import com.example.orderemanagement.model.Product;
+import com.example.orderemanagement.repository.CustomerRepository;
+import com.example.orderemanagement.repository.InventoryMovementRepository;
+import com.example.orderemanagement.repository.InventoryRepository;
+import com.example.orderemanagement.repository.OrderRepository;
+import com.example.orderemanagement.repository.ProductRepository;
+import com.example.orderemanagement.service.ProductService;
+import com.example.orderemanagement.support.EmbeddedIntegrationTest;
+import com.example.orderemanagement.support.SqlBudget;
+
+/**
+ * Captures the SQL Hibernate issues for the hot lookups and runs {@code EXPLAIN} on it
+ * against the migrated H2 schema. A plan that reads a whole table means an index from
+ * db/migration was dropped or no longer matches the query.
+ */
+class QueryPlanTest extends EmbeddedIntegrationTest {
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void createData() {
+        String suffix = UUID.randomUUID().toString();
+        customer = new Customer();
+        customer.setName("Plan Customer");
+        customer.setEmail("plan-" + suffix + "@example.com");
+        customer.setPassword("unused");
+        customer = customerRepository.save(customer);
+
+        AddProductRequestDto requestDto = new AddProductRequestDto();
+        requestDto.setName("Plan Product " + suffix);
+        requestDto.setDescription("query plan");
+        requestDto.setPrice(9.99);
+        requestDto.setInitialStock(100);
+        product = productService.addProduct(requestDto);
+    }
+
+    @Test
+    void inventoryLockLookupUsesAnIndex() throws Throwable {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        assertIndexed(() -> transaction.executeWithoutResult(status ->
+                inventoryRepository.findByProductWithLock(product)), product.getId());
+    }
+
+    @Test
+    void ledgerBalanceLookupUsesAnIndex() throws Throwable {
+        assertIndexed(() -> movementRepository.sumBetween(product.getId(), 0, Long.MAX_VALUE),
+                product.getId(), 0L, Long.MAX_VALUE);
+    }
+
+    @Test
+    void productNameLookupUsesAnIndex() throws Throwable {
+        assertIndexed(() -> productRepository.findByName(product.getName()), product.getName());
+    }
+
+    @Test
+    void customerOrdersLookupUsesAnIndex() throws Throwable {
+        assertIndexed(() -> orderRepository.findByCustomer(customer), customer.getId());
+    }
+
+    private void assertIndexed(Executable call, Object... parameters) throws Throwable {
+        List<String> queries = SqlBudget.measure(call).getSql().stream()
+                .filter(sql -> sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("select"))
+                .toList();
+        assertFalse(queries.isEmpty(), "No query was captured");
+        for (String sql : queries) {
+            String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters));
+            assertFalse(plan.toLowerCase(Locale.ROOT).contains("tablescan"), "Full table scan for " + sql + ":\n" + plan);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.orderemanagement;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.example.orderemanagement.dto.AddProductRequestDto;
+import com.example.orderemanagement.model.Customer;
+import com.example.orderemanagement.model.Product;
+import com.example.orderemanagement.repository.CustomerRepository;
+import com.example.orderemanagement.service.ProductService;
+import com.example.orderemanagement.support.EmbeddedIntegrationTest;
+import com.example.orderemanagement.support.SqlBudget;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class SqlStatementBudgetTest extends EmbeddedIntegrationTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void createData() {
+        String suffix = UUID.randomUUID().toString();
+        customer = new Customer();
+        customer.setName("Budget Customer");
+        customer.setEmail("budget-" + suffix + "@example.com");
+        customer.setPassword(passwordEncoder.encode("password123"));
+        customer = customerRepository.save(customer);
+
+        AddProductRequestDto requestDto = new AddProductRequestDto();
+        requestDto.setName("Budget Product " + suffix);
+        requestDto.setDescription("statement budget");
+        requestDto.setPrice(9.99);
+        requestDto.setInitialStock(100);
+        product = productService.addProduct(requestDto);
+    }
+
+    @Test
+    void catalogListingIsOneQuery() throws Throwable {
+        SqlBudget.assertWithinBudget("GET /api/customers/products", 1, () ->
+                mockMvc.perform(get("/api/customers/products")).andExpect(status().isOk()));
+    }
+
+    @Test
+    void stockAvailabilityIsOneQuery() throws Throwable {
+        String body = objectMapper.writeValueAsString(Map.of("productIds", new Long[] { product.getId() }));
+        SqlBudget.assertWithinBudget("POST /api/customers/products/availability", 1, () ->
+                mockMvc.perform(post("/api/customers/products/availability")
+                                .contentType(MediaType.APPLICATION_JSON).content(body))
+                        .andExpect(status().isOk()));
+    }
+
+    @Test
+    void buyStaysWithinBudget() throws Throwable {
+        // product lookup, inventory SELECT ... FOR UPDATE, customer lookup, stock UPDATE, order INSERT
+        String body = objectMapper.writeValueAsString(Map.of(
+                "customerId", customer.getId(), "productId", product.getId(), "quantity", 1));
+        SqlBudget.assertWithinBudget("POST /api/customers/products/buy", 5, () ->
+                mockMvc.perform(post("/api/customers/products/buy")
+                                .contentType(MediaType.APPLICATION_JSON).content(body))
+                        .andExpect(status().isOk()));
+    }
+
+    @Test
+    void loginIsOneQuery() throws Throwable {
+        String body = objectMapper.writeValueAsString(Map.of(
+                "email", customer.getEmail(), "password", "password123"));
+        SqlBudget.assertWithinBudget("POST /api/customers/login", 1, () -> {
+            MvcResult result = mockMvc.perform(post("/api/customers/login")
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.orderemanagement.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ConsistentHashRingTest {
+    private static final List<String> NODES = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+
+    @Test
+    void emptyRingHasNoOwner() {
+        assertNull(ConsistentHashRing.empty().ownerOf("1"));
+    }
+
+    @Test
+    void keysSpreadAcrossAllNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+        Map<String, Integer> owned = new HashMap<>();
+        for (int productId = 0; productId < 3000; productId++)
+            owned.merge(ring.ownerOf(String.valueOf(productId)), 1, Integer::sum);
+        assertEquals(3, owned.size());
+        owned.values().forEach(count -> assertTrue(count > 600, "Unbalanced ring: " + owned));
+    }
+
+    @Test
+    void joiningNodeOnlyTakesKeysFromOthers() {
+        ConsistentHashRing before = new ConsistentHashRing(NODES, 128);
+        ConsistentHashRing after = new ConsistentHashRing(
+                List.of("http://a:8080", "http://b:8080", "http://c:8080", "http://d:8080"), 128);
+        int moved = 0;
+        for (int productId = 0; productId < 3000; productId++) {
+            String key = String.valueOf(productId);
+            if (!before.ownerOf(key).equals(after.ownerOf(key))) {
+                assertEquals("http://d:8080", after.ownerOf(key));
+                moved++;
+            }
+        }
+        assertTrue(moved < 1200, "Too many keys moved: " + moved);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.orderemanagement.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OrderJournalTest {
+    private static final int SEGMENT_SIZE = JournalRecord.SIZE * 4;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void durableRecordsSurviveReopen() throws Exception {
+        OrderJournal journal = open();
+        for (int i = 1; i <= 6; i++)
+            journal.appendDurably(record(i));
+        journal.close();
+
+        OrderJournal reopened = open();
+        List<JournalRecord> records = reopened.read(reopened.getCheckpoint(), 100).records();
+        assertEquals(6, records.size());
+        assertEquals(record(6), records.get(5));
+        reopened.close();
+    }
+
+    @Test
+    void tornTailIsDiscardedOnRecovery() throws Exception {
+        OrderJournal journal = open();
+        journal.appendDurably(record(1));
+        journal.appendDurably(record(2));
+        journal.close();
+
+        // Simulate a crash after the length was written but before the payload reached disk
+        try (FileChannel channel = FileChannel.open(onlySegment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, JournalRecord.SIZE - JournalRecord.HEADER_SIZE),
+                    JournalRecord.SIZE * 2L);
+        }
+
+        OrderJournal reopened = open();
+        assertEquals(2, reopened.read(reopened.getCheckpoint(), 100).records().size());
+        reopened.appendDurably(record(3));
+        assertEquals(record(3), reopened.read(reopened.getCheckpoint(), 100).records().get(2));
+        reopened.close();
+    }
+
+    @Test
+    void checkpointDeletesAppliedSegments() throws Exception {
+        OrderJournal journal = open();
+        for (int i = 1; i <= 10; i++)
+            journal.appendDurably(record(i));
+        OrderJournal.Batch batch = journal.read(journal.getCheckpoint(), 9);
+        journal.commitCheckpoint(batch.next());
+        journal.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(file -> file.getFileName().toString().endsWith(".log")).count());
+        }
+        OrderJournal reopened = open();
+        assertEquals(List.of(record(10)), reopened.read(reopened.getCheckpoint(), 100).records());
+        reopened.close();
+    }
+
+    @Test
+    void orderIdsAreUnique() throws Exception {
+        OrderJournal journal = new OrderJournal(false, directory.toString(), SEGMENT_SIZE, 1000, "7");
+        Set<Long> ids = new HashSet<>();
+        long previous = 0;
+        for (int i = 0; i < 50_000; i++) {
+            long id = journal.nextOrderId();
+            assertTrue(id > previous);
+            ids.add(id);
+            previous = id;
+        }
+        assertEquals(50_000, ids.size());
+        assertEquals(7, (previous >> 12) & 0x3ff);
+    }
+
+    @Test
+    void enabledJournalRequiresNodeId() {
+        assertThrows(IllegalStateException.class,
+                () -> new OrderJournal(true, directory.toString(), SEGMENT_SIZE, 1000, ""));
+    }
+
+    @Test
+    void directoryCannotBeSharedByTwoJournals() throws Exception {
+        OrderJournal journal = open();
+        OrderJournal second = new OrderJournal(true, directory.toString(), SEGMENT_SIZE, 1000, "2");
+        assertThrows(IllegalStateException.class, second::open);
+        journal.close();
+    }
+
+    private OrderJournal open() throws IOException {
+        OrderJournal journal = new OrderJournal(true, directory.toString(), SEGMENT_SIZE, 1000, "1");
+        journal.open();
+        return journal;
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+    }
+
+    private static JournalRecord record(long orderId) {
+        return new JournalRecord(orderId, 10 + orderId, 20 + orderId, (int) orderId, 1_700_000_000_000L + orderId);
+    }
+}
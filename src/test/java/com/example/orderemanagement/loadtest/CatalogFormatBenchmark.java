@@ -0,0 +1,105 @@
+package com.example.orderemanagement.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.example.orderemanagement.dto.ProductResponseDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+/**
+ * Payload size and encode/decode cost of the catalog in each negotiable format. Run with
+ * {@code mvn -Pload-test test -Dtest=CatalogFormatBenchmark -Dloadtest.format.products=10000};
+ * the report is written to target/load-test/formats.txt.
+ */
+@Tag("load")
+class CatalogFormatBenchmark {
+    private static final TypeReference<List<ProductResponseDto>> CATALOG = new TypeReference<>() {
+    };
+
+    private final int products = Integer.getInteger("loadtest.format.products", 10_000);
+    private final int iterations = Integer.getInteger("loadtest.format.iterations", 50);
+
+    @Test
+    void compareFormats() throws Exception {
+        List<ProductResponseDto> catalog = catalog(products);
+        Map<String, ObjectMapper> formats = new LinkedHashMap<>();
+        formats.put("json", new ObjectMapper());
+        formats.put("cbor", new CBORMapper());
+        formats.put("smile", new SmileMapper());
+
+        StringBuilder report = new StringBuilder(String.format("%d products, median of %d iterations%n%n%-6s %12s %12s %12s %12s%n",
+                products, iterations, "format", "bytes", "gzip bytes", "encode us", "decode us"));
+        for (Map.Entry<String, ObjectMapper> format : formats.entrySet()) {
+            ObjectMapper mapper = format.getValue();
+            byte[] body = mapper.writeValueAsBytes(catalog);
+            assertEquals(catalog, mapper.readValue(body, CATALOG), format.getKey() + " did not round-trip");
+
+            long[] encode = new long[iterations];
+            long[] decode = new long[iterations];
+            // Every measurement runs twice; the first pass only warms up the JIT
+            for (int warm = 0; warm < 2; warm++) {
+                for (int i = 0; i < iterations; i++) {
+                    long started = System.nanoTime();
+                    mapper.writeValueAsBytes(catalog);
+                    encode[i] = System.nanoTime() - started;
+                    started = System.nanoTime();
+                    mapper.readValue(body, CATALOG);
+                    decode[i] = System.nanoTime() - started;
+                }
+            }
+            report.append(String.format("%-6s %12d %12d %12d %12d%n", format.getKey(), body.length, gzip(body).length,
+                    median(encode) / 1_000, median(decode) / 1_000));
+        }
+
+        Path reportFile = Path.of("target", "load-test", "formats.txt");
+        Files.createDirectories(reportFile.getParent());
+        Files.writeString(reportFile, report);
+        System.out.println(report);
+    }
+
+    private static List<ProductResponseDto> catalog(int size) {
+        Random random = new Random(42);
+        List<ProductResponseDto> catalog = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            ProductResponseDto product = new ProductResponseDto();
+            product.setId((long) i);
+            product.setName("Product " + i);
+            product.setDescription("Description of product " + i + " with some typical marketing text");
+            product.setPrice(Math.round(random.nextDouble() * 100_000) / 100.0);
+            product.setStockQuantity(random.nextInt(1_000));
+            catalog.add(product);
+        }
+        return catalog;
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        }
+        return compressed.toByteArray();
+    }
+}
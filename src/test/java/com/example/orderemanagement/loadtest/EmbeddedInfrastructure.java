@@ -0,0 +1,83 @@
+package com.example.orderemanagement.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.orderemanagement.OrderemanagementApplication;
+
+import redis.embedded.RedisServer;
+
+/**
+ * Boots a local Redis stand-in and N application instances in this JVM. All instances
+ * share one in-memory H2 database (see application-embedded.yml) and the same Redis, so
+ * they contend exactly like separately deployed nodes would.
+ */
+public class EmbeddedInfrastructure implements AutoCloseable {
+    private final RedisServer redisServer;
+    private final int redisPort;
+    private final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+    private final String[] profiles;
+
+    // Extra profiles are applied after "embedded" and override it
+    public EmbeddedInfrastructure(String... extraProfiles) throws IOException {
+        List<String> profiles = new ArrayList<>(List.of("embedded"));
+        profiles.addAll(List.of(extraProfiles));
+        this.profiles = profiles.toArray(String[]::new);
+        this.redisPort = freePort();
+        this.redisServer = new RedisServer(redisPort);
+        this.redisServer.start();
+    }
+
+    public ConfigurableApplicationContext startInstance(String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.data.redis.port=" + redisPort));
+        properties.addAll(List.of(extraProperties));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(OrderemanagementApplication.class)
+                .profiles(profiles)
+                .properties(properties.toArray(String[]::new))
+                .run();
+        instances.add(context);
+        return context;
+    }
+
+    public List<String> startInstances(int count, String... extraProperties) {
+        List<String> baseUrls = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            baseUrls.add(baseUrl(startInstance(extraProperties)));
+        return baseUrls;
+    }
+
+    public List<ConfigurableApplicationContext> getInstances() {
+        return instances;
+    }
+
+    public int getRedisPort() {
+        return redisPort;
+    }
+
+    public static String baseUrl(ConfigurableApplicationContext context) {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        return "http://localhost:" + port;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (int i = instances.size() - 1; i >= 0; i--)
+            instances.get(i).close();
+        instances.clear();
+        redisServer.stop();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.orderemanagement.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.orderemanagement.loadtest.LoadProfile.Operation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Self-contained replacement for ConcurrentBuyTest and the Python scripts: boots the
+ * configured number of instances in-process, drives an open-loop buy/catalog/login mix
+ * against them and checks that no stock was oversold or lost.
+ * Run with {@code mvn -Pload-test test}; the report is written to target/load-test/report.txt.
+ */
+@Tag("load")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class InventoryLoadTest {
+    private static final String EMAIL = "loadtest@example.com";
+    private static final String PASSWORD = "password123";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final LoadProfile profile = LoadProfile.fromSystemProperties();
+    private final Map<Long, Integer> initialStock = new HashMap<>();
+    private EmbeddedInfrastructure infrastructure;
+    private List<String> baseUrls;
+    private long customerId;
+    private List<Long> productIds;
+
+    @BeforeAll
+    void startCluster() throws Exception {
+        infrastructure = new EmbeddedInfrastructure(profile.profiles().toArray(String[]::new));
+        baseUrls = infrastructure.startInstances(profile.instances());
+
+        String customer = post(baseUrls.get(0) + "/api/customers/register",
+                Map.of("name", "Load Test", "email", EMAIL, "password", PASSWORD));
+        customerId = objectMapper.readTree(customer).get("id").asLong();
+
+        productIds = new ArrayList<>();
+        for (int i = 0; i < profile.products(); i++) {
+            String product = post(baseUrls.get(0) + "/api/admins/products/add", Map.of(
+                    "name", "Load Product " + i,
+                    "description", "load test",
+                    "price", 10.0 + i,
+                    "initialStock", profile.initialStock()));
+            long productId = objectMapper.readTree(product).get("id").asLong();
+            productIds.add(productId);
+            initialStock.put(productId, profile.initialStock());
+        }
+    }
+
+    @AfterAll
+    void stopCluster() throws Exception {
+        if (infrastructure != null)
+            infrastructure.close();
+    }
+
+    @Test
+    void mixedLoadKeepsInventoryConsistent() throws Exception {
+        OpenLoopDriver warmup = new OpenLoopDriver(profile, baseUrls, this::requestFor);
+        warmup.run(profile.warmupSeconds(), false);
+
+        OpenLoopDriver driver = new OpenLoopDriver(profile, baseUrls, this::requestFor);
+        driver.run(profile.durationSeconds(), true);
+
+        String report = driver.report();
+        Path reportFile = Path.of("target", "load-test", "report.txt");
+        Files.createDirectories(reportFile.getParent());
+        Files.writeString(reportFile, report);
+
+        assertInventoryInvariants();
+    }
+
+    private void assertInventoryInvariants() {
+        JdbcTemplate jdbcTemplate = infrastructure.getInstances().get(0).getBean(JdbcTemplate.class);
+        Map<Long, Long> ordered = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, SUM(quantity) FROM orders GROUP BY product_id",
+                rs -> { ordered.put(rs.getLong(1), rs.getLong(2)); });
+        for (Long productId : productIds) {
+            // Ledger mode: movements after ledger_position are not yet folded into stock_quantity
+            Integer stock = jdbcTemplate.queryForObject(
+                    "SELECT i.stock_quantity + COALESCE((SELECT SUM(m.quantity) FROM inventory_movements m " +
+                    "WHERE m.product_id = i.product_id AND m.id > i.ledger_position), 0) " +
+                    "FROM inventories i WHERE i.product_id = ?", Integer.class, productId);
+            long sold = ordered.getOrDefault(productId, 0L);
+            assertTrue(stock >= 0, "Product " + productId + " oversold: stock " + stock);
+            assertEquals(initialStock.get(productId).longValue(), stock + sold,
+                    "Product " + productId + " stock + ordered quantity must equal the initial stock");
+        }
+    }
+
+    private HttpRequest.Builder requestFor(Operation operation) {
+        return switch (operation) {
+            case BUY -> jsonPost(Map.of(
+                    "customerId", customerId,
+                    "productId", productIds.get(ThreadLocalRandom.current().nextInt(productIds.size())),
+                    "quantity", 1));
+            case CATALOG -> HttpRequest.newBuilder().GET();
+            case LOGIN -> jsonPost(Map.of("email", EMAIL, "password", PASSWORD));
+        };
+    }
+
+    private HttpRequest.Builder jsonPost(Object body) {
+        try {
+            return HttpRequest.newBuilder()
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String post(String url, Object body) throws Exception {
+        HttpResponse<String> response = httpClient.send(jsonPost(body).uri(URI.create(url)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertTrue(response.statusCode() < 300, url + " failed: " + response.body());
+        return response.body();
+    }
+}
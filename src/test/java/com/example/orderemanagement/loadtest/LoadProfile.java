@@ -0,0 +1,62 @@
+package com.example.orderemanagement.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load-test parameters, read from {@code loadtest.*} system properties so runs can be
+ * compared without editing code, e.g.
+ * {@code mvn -Pload-test test -Dloadtest.instances=3 -Dloadtest.rate=500 -Dloadtest.mix=buy:80,catalog:20}.
+ * {@code loadtest.profiles} adds Spring profiles after {@code embedded}, e.g. to compare
+ * {@code verbose-logging} with {@code prod} logging.
+ */
+public record LoadProfile(int instances,
+                          int arrivalRatePerSecond,
+                          int durationSeconds,
+                          int warmupSeconds,
+                          int products,
+                          int initialStock,
+                          Map<Operation, Integer> mix,
+                          List<String> profiles) {
+
+    public enum Operation {
+        BUY, CATALOG, LOGIN
+    }
+
+    public static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+                Integer.getInteger("loadtest.instances", 3),
+                Integer.getInteger("loadtest.rate", 200),
+                Integer.getInteger("loadtest.duration-seconds", 20),
+                Integer.getInteger("loadtest.warmup-seconds", 5),
+                Integer.getInteger("loadtest.products", 5),
+                Integer.getInteger("loadtest.initial-stock", 1000),
+                parseMix(System.getProperty("loadtest.mix", "buy:60,catalog:35,login:5")),
+                Arrays.stream(System.getProperty("loadtest.profiles", "").split(","))
+                        .map(String::trim)
+                        .filter(profile -> !profile.isEmpty())
+                        .toList());
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    public Operation pick(int roll) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int point = Math.floorMod(roll, total);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            point -= entry.getValue();
+            if (point < 0)
+                return entry.getKey();
+        }
+        throw new IllegalStateException("Empty operation mix");
+    }
+}
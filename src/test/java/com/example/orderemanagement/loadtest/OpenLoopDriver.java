@@ -0,0 +1,120 @@
+package com.example.orderemanagement.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.example.orderemanagement.loadtest.LoadProfile.Operation;
+
+/**
+ * Issues requests on a fixed arrival schedule regardless of how quickly earlier requests
+ * complete. Latency is measured from each request's intended send time, so queueing inside
+ * the system under test is not hidden by a slow client (coordinated omission).
+ */
+public class OpenLoopDriver {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final LoadProfile profile;
+    private final List<String> baseUrls;
+    private final Function<Operation, HttpRequest.Builder> requestFactory;
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<String, AtomicLong> statusCounts = new ConcurrentHashMap<>();
+
+    public OpenLoopDriver(LoadProfile profile, List<String> baseUrls,
+                          Function<Operation, HttpRequest.Builder> requestFactory) {
+        this.profile = profile;
+        this.baseUrls = baseUrls;
+        this.requestFactory = requestFactory;
+        for (Operation operation : Operation.values())
+            histograms.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+    }
+
+    public void run(int seconds, boolean record) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / profile.arrivalRatePerSecond();
+        long totalRequests = (long) seconds * profile.arrivalRatePerSecond();
+        long start = System.nanoTime();
+        CompletableFuture<?>[] inFlight = new CompletableFuture<?>[(int) totalRequests];
+
+        for (int i = 0; i < totalRequests; i++) {
+            long intendedStart = start + i * intervalNanos;
+            long sleep = intendedStart - System.nanoTime();
+            if (sleep > 0)
+                LockSupport.parkNanos(sleep);
+
+            Operation operation = profile.pick(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE));
+            String baseUrl = baseUrls.get(i % baseUrls.size());
+            HttpRequest request = requestFactory.apply(operation)
+                    .uri(URI.create(baseUrl + uriFor(operation)))
+                    .timeout(Duration.ofSeconds(30))
+                    .build();
+            inFlight[i] = httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        if (record) {
+                            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart);
+                            histograms.get(operation).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                            String outcome = error != null ? "error" : String.valueOf(response.statusCode());
+                            statusCounts.computeIfAbsent(operation + " " + outcome, k -> new AtomicLong())
+                                    .incrementAndGet();
+                        }
+                        return null;
+                    });
+        }
+        CompletableFuture.allOf(inFlight).join();
+    }
+
+    public Map<Operation, Histogram> getHistograms() {
+        return histograms;
+    }
+
+    public Map<String, AtomicLong> getStatusCounts() {
+        return statusCounts;
+    }
+
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("instances=%d rate=%d/s duration=%ds mix=%s profiles=%s%n",
+                profile.instances(), profile.arrivalRatePerSecond(), profile.durationSeconds(), profile.mix(),
+                profile.profiles()));
+        report.append(String.format("%-8s %8s %10s %10s %10s %10s%n", "op", "count", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)"));
+        histograms.forEach((operation, histogram) -> {
+            if (histogram.getTotalCount() == 0)
+                return;
+            report.append(String.format("%-8s %8d %10.2f %10.2f %10.2f %10.2f%n", operation,
+                    histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0));
+        });
+        statusCounts.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> report.append(String.format("%s: %d%n", entry.getKey(), entry.getValue().get())));
+        return report.toString();
+    }
+
+    private static String uriFor(Operation operation) {
+        return switch (operation) {
+            case BUY -> "/api/customers/products/buy";
+            case CATALOG -> "/api/customers/products";
+            case LOGIN -> "/api/customers/login";
+        };
+    }
+}
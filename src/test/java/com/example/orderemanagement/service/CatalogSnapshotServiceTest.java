@@ -0,0 +1,144 @@
+package com.example.orderemanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.orderemanagement.dto.AddProductRequestDto;
+import com.example.orderemanagement.dto.UpdateProductRequestDto;
+import com.example.orderemanagement.model.Product;
+import com.example.orderemanagement.service.CatalogSnapshotService.Format;
+import com.example.orderemanagement.service.CatalogSnapshotService.Snapshot;
+import com.example.orderemanagement.support.EmbeddedIntegrationTest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+class CatalogSnapshotServiceTest extends EmbeddedIntegrationTest {
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Product product;
+    private Product neighbour;
+
+    @BeforeEach
+    void createData() {
+        product = productService.addProduct(product("Snapshot Product "));
+        neighbour = productService.addProduct(product("Snapshot Neighbour "));
+        awaitSnapshot(snapshot -> snapshot.fragments().containsKey(product.getId())
+                && snapshot.fragments().containsKey(neighbour.getId()));
+    }
+
+    @Test
+    void changedProductIsRebuiltIncrementally() {
+        Snapshot before = catalogSnapshotService.current();
+        byte[] neighbourBefore = before.fragments().get(neighbour.getId()).get(Format.JSON);
+        double incremental = rebuilds("incremental");
+
+        productService.updateProduct(rename("Renamed Snapshot Product " + UUID.randomUUID()), product.getId(), null);
+
+        Snapshot after = awaitSnapshot(snapshot -> snapshot.version() > before.version()
+                && new String(snapshot.fragments().get(product.getId()).get(Format.JSON)).contains("Renamed"));
+        assertThat(after.fragments().get(neighbour.getId()).get(Format.JSON)).isEqualTo(neighbourBefore);
+        assertThat(new String(after.body(Format.JSON).bytes())).contains("Renamed Snapshot Product");
+        assertThat(after.body(Format.JSON).etag()).isNotEqualTo(before.body(Format.JSON).etag());
+        assertThat(rebuilds("incremental")).isGreaterThan(incremental);
+    }
+
+    @Test
+    void deletedProductLeavesTheSnapshot() {
+        productService.deleteProduct(product.getId(), null);
+
+        Snapshot after = awaitSnapshot(snapshot -> !snapshot.fragments().containsKey(product.getId()));
+        assertThat(after.fragments()).containsKey(neighbour.getId());
+    }
+
+    @Test
+    void unchangedCatalogAnswersNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/customers/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isEqualTo(catalogSnapshotService.current().body(Format.JSON).etag());
+
+        mockMvc.perform(get("/api/customers/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        productService.updateProduct(rename("Changed Snapshot Product " + UUID.randomUUID()), product.getId(), null);
+        awaitSnapshot(snapshot -> !snapshot.body(Format.JSON).etag().equals(etag));
+
+        mockMvc.perform(get("/api/customers/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void gzippedCatalogHasItsOwnEtag() throws Exception {
+        Snapshot current = catalogSnapshotService.current();
+        String gzipEtag = current.body(Format.JSON).gzipEtag();
+        assertThat(gzipEtag).isNotEqualTo(current.body(Format.JSON).etag());
+
+        mockMvc.perform(get("/api/customers/products").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, gzipEtag));
+        mockMvc.perform(get("/api/customers/products").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        // The identity tag does not validate the gzipped representation
+        mockMvc.perform(get("/api/customers/products").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, current.body(Format.JSON).etag()))
+                .andExpect(status().isOk());
+    }
+
+    // The scheduled refresh may pick a change up before the test does, so poll instead of asserting once
+    private Snapshot awaitSnapshot(Predicate<Snapshot> condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            catalogSnapshotService.refresh();
+            Snapshot snapshot = catalogSnapshotService.current();
+            if (condition.test(snapshot))
+                return snapshot;
+            assertThat(System.currentTimeMillis()).as("snapshot did not reach the expected state").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private double rebuilds(String type) {
+        return meterRegistry.counter("catalog.snapshot.rebuilds", "type", type).count();
+    }
+
+    private static AddProductRequestDto product(String namePrefix) {
+        AddProductRequestDto requestDto = new AddProductRequestDto();
+        requestDto.setName(namePrefix + UUID.randomUUID());
+        requestDto.setDescription("catalog snapshot");
+        requestDto.setPrice(2.50);
+        requestDto.setInitialStock(10);
+        return requestDto;
+    }
+
+    private static UpdateProductRequestDto rename(String name) {
+        UpdateProductRequestDto requestDto = new UpdateProductRequestDto();
+        requestDto.setNewName(name);
+        return requestDto;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.orderemanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.orderemanagement.dto.AddProductRequestDto;
+import com.example.orderemanagement.dto.BuyProductRequestDto;
+import com.example.orderemanagement.dto.ProductResponseDto;
+import com.example.orderemanagement.dto.StockAvailabilityRequestDto;
+import com.example.orderemanagement.model.Customer;
+import com.example.orderemanagement.model.Inventory;
+import com.example.orderemanagement.model.Product;
+import com.example.orderemanagement.repository.CustomerRepository;
+import com.example.orderemanagement.repository.InventoryMovementRepository;
+import com.example.orderemanagement.repository.InventoryRepository;
+import com.example.orderemanagement.service.CatalogSnapshotService.Format;
+import com.example.orderemanagement.support.EmbeddedIntegrationTest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Scheduled compaction is pushed out so each test decides when movements are folded
+@TestPropertySource(properties = {
+        "inventory.mode=ledger",
+        "inventory.ledger.compaction-interval-ms=3600000",
+        "inventory.ledger.reconcile-interval-ms=3600000"
+})
+class InventoryLedgerServiceTest extends EmbeddedIntegrationTest {
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void createData() {
+        String suffix = UUID.randomUUID().toString();
+        customer = new Customer();
+        customer.setName("Ledger Customer");
+        customer.setEmail("ledger-" + suffix + "@example.com");
+        customer.setPassword(passwordEncoder.encode("password123"));
+        customer = customerRepository.save(customer);
+
+        AddProductRequestDto requestDto = new AddProductRequestDto();
+        requestDto.setName("Ledger Product " + suffix);
+        requestDto.setDescription("inventory ledger");
+        requestDto.setPrice(1.25);
+        requestDto.setInitialStock(10);
+        product = productService.addProduct(requestDto);
+    }
+
+    @Test
+    void purchaseIsAppendedAndFoldedByCompactor() {
+        productService.buyProduct(buy(3));
+
+        assertThat(balance()).isEqualTo("7");
+        Inventory unfolded = inventoryRepository.findById(product.getId()).orElseThrow();
+        assertThat(unfolded.getStockQuantity()).isEqualTo(10);
+        assertThat(unfolded.getLedgerPosition()).isZero();
+
+        inventoryLedgerService.compact();
+
+        Inventory folded = inventoryRepository.findById(product.getId()).orElseThrow();
+        assertThat(folded.getStockQuantity()).isEqualTo(7);
+        assertThat(folded.getLedgerPosition()).isEqualTo(movementRepository.findLastIdByProductId(product.getId()));
+        assertThat(inventoryLedgerService.pending(List.of(product.getId()))).isEmpty();
+        assertThat(balance()).isEqualTo("7");
+    }
+
+    @Test
+    void rolledBackReservationIsHandedBack() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            assertThat(inventoryLedgerService.reserve(product.getId(), 4)).isEqualTo(6);
+            status.setRollbackOnly();
+        });
+
+        assertThat(balance()).isEqualTo("10");
+    }
+
+    @Test
+    void refundFromBeforeResetIsDropped() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            inventoryLedgerService.reserve(product.getId(), 4);
+            // As a reconcile would while the rollback is on its way: balance from committed movements, new epoch
+            redisTemplate.opsForValue().set(InventoryLedgerService.balanceKey(product.getId()), "10");
+            redisTemplate.opsForValue().increment(InventoryLedgerService.balanceKey(product.getId()) + ":epoch");
+            status.setRollbackOnly();
+        });
+
+        assertThat(balance()).isEqualTo("10");
+    }
+
+    @Test
+    void reconcileResetsDriftedBalance() {
+        productService.buyProduct(buy(1));
+        redisTemplate.opsForValue().set(InventoryLedgerService.balanceKey(product.getId()), "100");
+        double reconciled = meterRegistry.counter("inventory.ledger.reconciled").count();
+
+        inventoryLedgerService.reconcileAll();
+
+        assertThat(balance()).isEqualTo("9");
+        assertThat(meterRegistry.counter("inventory.ledger.reconciled").count()).isGreaterThan(reconciled);
+    }
+
+    @Test
+    void stockReadsIncludeMovementsNotYetFolded() {
+        catalogSnapshotService.current();
+        productService.buyProduct(buy(2));
+
+        StockAvailabilityRequestDto availability = new StockAvailabilityRequestDto();
+        availability.setProductIds(List.of(product.getId()));
+        assertThat(productService.getStockAvailability(availability)).containsEntry(product.getId(), 8);
+        assertThat(productService.getProductByName(product.getName()).getStockQuantity()).isEqualTo(8);
+        assertThat(productService.getAllProducts()).filteredOn(dto -> dto.getId().equals(product.getId()))
+                .extracting(ProductResponseDto::getStockQuantity).containsExactly(8);
+
+        // The change event reaches the snapshot on its next refresh
+        long deadline = System.currentTimeMillis() + 5000;
+        String fragment = "";
+        while (!fragment.contains("\"stockQuantity\":8") && System.currentTimeMillis() < deadline) {
+            catalogSnapshotService.refresh();
+            Map<Format, byte[]> encoded = catalogSnapshotService.current().fragments().get(product.getId());
+            fragment = encoded == null ? "" : new String(encoded.get(Format.JSON));
+        }
+        assertThat(fragment).contains("\"stockQuantity\":8");
+    }
+
+    private String balance() {
+        return redisTemplate.opsForValue().get(InventoryLedgerService.balanceKey(product.getId()));
+    }
+
+    private BuyProductRequestDto buy(int quantity) {
+        BuyProductRequestDto requestDto = new BuyProductRequestDto();
+        requestDto.setCustomerId(customer.getId());
+        requestDto.setProductId(product.getId());
+        requestDto.setQuantity(quantity);
+        return requestDto;
+    }
+}
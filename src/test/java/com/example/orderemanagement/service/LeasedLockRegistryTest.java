@@ -0,0 +1,156 @@
+package com.example.orderemanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.orderemanagement.dto.AddProductRequestDto;
+import com.example.orderemanagement.model.Customer;
+import com.example.orderemanagement.model.Inventory;
+import com.example.orderemanagement.model.Product;
+import com.example.orderemanagement.repository.CustomerRepository;
+import com.example.orderemanagement.repository.InventoryRepository;
+import com.example.orderemanagement.service.LeasedLockRegistry.LeasedLock;
+import com.example.orderemanagement.support.EmbeddedIntegrationTest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@TestPropertySource(properties = "locks.mode=leased")
+class LeasedLockRegistryTest extends EmbeddedIntegrationTest {
+    private static final long LEASE_MILLIS = 300;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Two registries stand in for two instances sharing one Redis
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LeasedLockRegistry holder;
+    private LeasedLockRegistry contender;
+    private String key;
+
+    @BeforeEach
+    void startRegistries() {
+        holder = new LeasedLockRegistry(redisTemplate, meterRegistry, "leased", LEASE_MILLIS, 100);
+        contender = new LeasedLockRegistry(redisTemplate, meterRegistry, "leased", LEASE_MILLIS, 100);
+        holder.start();
+        contender.start();
+        key = "test:" + UUID.randomUUID();
+    }
+
+    @AfterEach
+    void stopRegistries() {
+        holder.stop();
+        contender.stop();
+    }
+
+    @Test
+    void watchdogKeepsLeaseWhileHolderIsAlive() throws Exception {
+        LeasedLock lock = holder.obtain(key);
+        assertThat(lock.tryLock()).isTrue();
+
+        Thread.sleep(LEASE_MILLIS * 3);
+
+        assertThat(lock.isLost()).isFalse();
+        assertThat(contender.obtain(key).tryLock()).isFalse();
+        lock.unlock();
+        assertThat(contender.obtain(key).tryLock()).isTrue();
+    }
+
+    @Test
+    void crashedHolderIsTakenOverWithinOneLeaseWithNewerToken() throws Exception {
+        LeasedLock crashed = holder.obtain(key);
+        assertThat(crashed.tryLock()).isTrue();
+        holder.stop();
+
+        LeasedLock next = contender.obtain(key);
+        assertThat(next.tryLock()).isFalse();
+        long startedAt = System.currentTimeMillis();
+        assertThat(next.tryLock(LEASE_MILLIS * 4, TimeUnit.MILLISECONDS)).isTrue();
+
+        assertThat(System.currentTimeMillis() - startedAt).isLessThan(LEASE_MILLIS * 4);
+        assertThat(next.getFencingToken()).isGreaterThan(crashed.getFencingToken());
+    }
+
+    @Test
+    void leaseTakenAwayIsReportedAsLost() throws Exception {
+        LeasedLock lock = holder.obtain(key);
+        assertThat(lock.tryLock()).isTrue();
+
+        redisTemplate.delete("lease:" + key);
+        Thread.sleep(LEASE_MILLIS);
+
+        assertThat(lock.isLost()).isTrue();
+        assertThat(meterRegistry.counter("locks.lease.lost").count()).isEqualTo(1);
+    }
+
+    @Test
+    void advancingFencingTokenNeverLowersTheCounter() {
+        holder.advanceFencingToken(key, 100);
+        holder.advanceFencingToken(key, 40);
+
+        LeasedLock lock = holder.obtain(key);
+        assertThat(lock.tryLock()).isTrue();
+        assertThat(lock.getFencingToken()).isEqualTo(101);
+        lock.unlock();
+    }
+
+    @Test
+    void staleFencingTokenIsRefusedAsRetryableAndRepairsCounter() throws Exception {
+        Customer customer = new Customer();
+        customer.setName("Fencing Customer");
+        customer.setEmail("fencing-" + UUID.randomUUID() + "@example.com");
+        customer.setPassword(passwordEncoder.encode("password123"));
+        customer = customerRepository.save(customer);
+        AddProductRequestDto requestDto = new AddProductRequestDto();
+        requestDto.setName("Fencing Product " + UUID.randomUUID());
+        requestDto.setDescription("fencing tokens");
+        requestDto.setPrice(3.00);
+        requestDto.setInitialStock(10);
+        Product product = productService.addProduct(requestDto);
+
+        // A newer holder has written the row, as if Redis lost the counter and restarted it
+        Inventory inventory = inventoryRepository.findById(product.getId()).orElseThrow();
+        inventory.setFenceToken(1_000_000);
+        inventoryRepository.save(inventory);
+
+        String body = objectMapper.writeValueAsString(Map.of(
+                "customerId", customer.getId(), "productId", product.getId(), "quantity", 1));
+        mockMvc.perform(post("/api/customers/products/buy").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        assertThat(inventoryRepository.findById(product.getId()).orElseThrow().getStockQuantity()).isEqualTo(10);
+        assertThat(redisTemplate.opsForValue().get("lease:fence:product:" + product.getId())).isEqualTo("1000000");
+        mockMvc.perform(post("/api/customers/products/buy").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.orderemanagement.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class RegisteredEmailFilterTest {
+
+    @Test
+    void reportsEverythingAsPresentUntilLoaded() {
+        RegisteredEmailFilter filter = new RegisteredEmailFilter(mock(JdbcTemplate.class), 1000, 0.01);
+        assertTrue(filter.mightContain("nobody@example.com"));
+    }
+
+    @Test
+    void addedEmailsAreAlwaysFoundIgnoringCase() {
+        RegisteredEmailFilter filter = loadedFilter(10_000);
+        for (int i = 0; i < 10_000; i++)
+            filter.add("user" + i + "@example.com");
+        for (int i = 0; i < 10_000; i++)
+            assertTrue(filter.mightContain("User" + i + "@Example.com"));
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        RegisteredEmailFilter filter = loadedFilter(10_000);
+        for (int i = 0; i < 10_000; i++)
+            filter.add("user" + i + "@example.com");
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++)
+            if (filter.mightContain("other" + i + "@example.org"))
+                falsePositives++;
+        assertTrue(falsePositives < 300, "False positives: " + falsePositives);
+    }
+
+    private static RegisteredEmailFilter loadedFilter(long expectedEmails) {
+        RegisteredEmailFilter filter = new RegisteredEmailFilter(mock(JdbcTemplate.class), expectedEmails, 0.01);
+        filter.load();
+        return filter;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.orderemanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.orderemanagement.dto.AddInventoryRequestDto;
+import com.example.orderemanagement.dto.AddProductRequestDto;
+import com.example.orderemanagement.dto.BuyProductRequestDto;
+import com.example.orderemanagement.model.Customer;
+import com.example.orderemanagement.model.Product;
+import com.example.orderemanagement.repository.CustomerRepository;
+import com.example.orderemanagement.support.EmbeddedIntegrationTest;
+
+class SoldOutServiceTest extends EmbeddedIntegrationTest {
+    private static final String SOLD_OUT_KEY = "inventory:sold-out";
+
+    @Autowired
+    private SoldOutService soldOutService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void createData() {
+        String suffix = UUID.randomUUID().toString();
+        customer = new Customer();
+        customer.setName("Sold Out Customer");
+        customer.setEmail("sold-out-" + suffix + "@example.com");
+        customer.setPassword(passwordEncoder.encode("password123"));
+        customer = customerRepository.save(customer);
+
+        AddProductRequestDto requestDto = new AddProductRequestDto();
+        requestDto.setName("Sold Out Product " + suffix);
+        requestDto.setDescription("sold-out markers");
+        requestDto.setPrice(4.99);
+        requestDto.setInitialStock(1);
+        product = productService.addProduct(requestDto);
+    }
+
+    @Test
+    void lastUnitMarksProductSoldOutUntilRestocked() {
+        productService.buyProduct(buy(1));
+
+        assertThat(soldOutService.isSoldOut(product.getId())).isTrue();
+        assertThat(redisTemplate.opsForSet().isMember(SOLD_OUT_KEY, product.getId().toString())).isTrue();
+        assertThatThrownBy(() -> productService.buyProduct(buy(1))).hasMessage("Insufficient stock");
+
+        AddInventoryRequestDto restock = new AddInventoryRequestDto();
+        restock.setQuantityToAdd(5);
+        productService.addToInventory(restock, product.getId(), null);
+
+        assertThat(soldOutService.isSoldOut(product.getId())).isFalse();
+        assertThat(redisTemplate.opsForSet().isMember(SOLD_OUT_KEY, product.getId().toString())).isFalse();
+        assertThat(productService.buyProduct(buy(1))).isNotNull();
+    }
+
+    @Test
+    void purchaseLeavingStockKeepsProductAvailable() {
+        AddInventoryRequestDto restock = new AddInventoryRequestDto();
+        restock.setQuantityToAdd(1);
+        productService.addToInventory(restock, product.getId(), null);
+
+        productService.buyProduct(buy(1));
+
+        assertThat(soldOutService.isSoldOut(product.getId())).isFalse();
+    }
+
+    @Test
+    void resyncDropsMarkersOfProductsInStock() {
+        redisTemplate.opsForSet().add(SOLD_OUT_KEY, product.getId().toString());
+
+        soldOutService.resync();
+
+        assertThat(soldOutService.isSoldOut(product.getId())).isFalse();
+        assertThat(redisTemplate.opsForSet().isMember(SOLD_OUT_KEY, product.getId().toString())).isFalse();
+    }
+
+    private BuyProductRequestDto buy(int quantity) {
+        BuyProductRequestDto requestDto = new BuyProductRequestDto();
+        requestDto.setCustomerId(customer.getId());
+        requestDto.setProductId(product.getId());
+        requestDto.setQuantity(quantity);
+        return requestDto;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.orderemanagement.support;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import redis.embedded.RedisServer;
+
+/**
+ * Base class for integration tests that need the full application: H2 in place of MySQL
+ * (application-embedded.yml) and one embedded Redis server shared by all test classes.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("embedded")
+public abstract class EmbeddedIntegrationTest {
+    private static final int REDIS_PORT;
+
+    static {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            REDIS_PORT = socket.getLocalPort();
+            RedisServer redisServer = new RedisServer(REDIS_PORT);
+            redisServer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    redisServer.stop();
+                } catch (IOException ignored) {
+                }
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.port", () -> REDIS_PORT);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.orderemanagement.support;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.function.Executable;
+
+import com.example.orderemanagement.monitoring.SqlStatistics;
+
+/**
+ * Runs a call inside a {@link SqlStatistics} scope and fails if it issued more SQL
+ * statements than the endpoint's budget.
+ */
+public final class SqlBudget {
+    private SqlBudget() {
+    }
+
+    public static SqlStatistics.Counts measure(Executable call) throws Throwable {
+        SqlStatistics.begin();
+        try {
+            call.execute();
+            return SqlStatistics.end();
+        } finally {
+            if (SqlStatistics.isActive())
+                SqlStatistics.end();
+        }
+    }
+
+    public static SqlStatistics.Counts assertWithinBudget(String endpoint, int maxStatements, Executable call)
+            throws Throwable {
+        SqlStatistics.Counts counts = measure(call);
+        assertTrue(counts.getStatements() <= maxStatements,
+                endpoint + " issued " + counts.getStatements() + " statements, budget is " + maxStatements + ": " + counts);
+        return counts;
+    }
+}
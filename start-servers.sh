@@ -1,17 +1,34 @@
 #!/bin/bash
 
-# Build the application
-./mvnw clean package -DskipTests
+# FAST_STARTUP=1 ./start-servers.sh starts the AOT/CDS build produced by build-fast-startup.sh
+if [ "$FAST_STARTUP" = "1" ]; then
+    JAR=target/fast-startup/orderemanagement-0.0.1-SNAPSHOT.jar
+    JAVA_OPTS="-XX:SharedArchiveFile=target/fast-startup/application.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup"
+    [ -f "$JAR" ] || ./build-fast-startup.sh
+else
+    # Build the application
+    ./mvnw clean package -DskipTests
+    JAR=target/orderemanagement-0.0.1-SNAPSHOT.jar
+    JAVA_OPTS=""
+fi
 
-# Start three instances on different ports
-SERVER_PORT=8080 java -jar target/orderemanagement-0.0.1-SNAPSHOT.jar &
+# JFR=1 records each instance with the lock/purchase events to target/jfr/server-<port>.jfr
+jfr_opts() {
+    if [ "$JFR" = "1" ]; then
+        mkdir -p target/jfr
+        echo "-XX:StartFlightRecording:settings=default,jfr/orderemanagement.jfc,filename=target/jfr/server-$1.jfr,dumponexit=true"
+    fi
+}
+
+# Start three instances on different ports, each with its own order journal and node id
+SERVER_PORT=8080 ORDERS_JOURNAL_DIR=./order-journal/8080 ORDERS_JOURNAL_NODE_ID=0 java $JAVA_OPTS $(jfr_opts 8080) -jar $JAR &
 echo "Started server on port 8080"
 
-SERVER_PORT=8081 java -jar target/orderemanagement-0.0.1-SNAPSHOT.jar &
+SERVER_PORT=8081 ORDERS_JOURNAL_DIR=./order-journal/8081 ORDERS_JOURNAL_NODE_ID=1 java $JAVA_OPTS $(jfr_opts 8081) -jar $JAR &
 echo "Started server on port 8081"
 
-SERVER_PORT=8082 java -jar target/orderemanagement-0.0.1-SNAPSHOT.jar &
+SERVER_PORT=8082 ORDERS_JOURNAL_DIR=./order-journal/8082 ORDERS_JOURNAL_NODE_ID=2 java $JAVA_OPTS $(jfr_opts 8082) -jar $JAR &
 echo "Started server on port 8082"
 
 # Wait for all background processes
-wait 
\ No newline at end of file
+wait 
@@ -0,0 +1,92 @@
+#!/usr/bin/env python3
+"""
+Startup benchmark: time from JVM launch to the first successful purchase.
+
+Starts one instance with the regular jar and one with the fast-startup build
+(AOT + CDS, see build-fast-startup.sh), one after the other, and reports how long
+each takes to serve its first 200 from /api/customers/products/buy.
+Requires MySQL and Redis to be running and the data from test-data.sql to be loaded.
+"""
+
+import argparse
+import os
+import subprocess
+import time
+
+import requests
+
+JAR = "target/orderemanagement-0.0.1-SNAPSHOT.jar"
+FAST_DIR = "target/fast-startup"
+FAST_JAR = f"{FAST_DIR}/orderemanagement-0.0.1-SNAPSHOT.jar"
+
+
+def first_successful_buy(command, port, customer_email, password, timeout):
+    env = dict(os.environ, SERVER_PORT=str(port))
+    base = f"http://localhost:{port}"
+    start = time.time()
+    process = subprocess.Popen(command, env=env, stdout=subprocess.DEVNULL, stderr=subprocess.DEVNULL)
+    try:
+        customer_id = None
+        product_id = None
+        while time.time() - start < timeout:
+            try:
+                if customer_id is None:
+                    login = requests.post(f"{base}/api/customers/login",
+                                          json={"email": customer_email, "password": password}, timeout=2)
+                    if login.status_code == 200:
+                        customer_id = login.json()["id"]
+                if customer_id is not None and product_id is None:
+                    products = requests.get(f"{base}/api/customers/products", timeout=2)
+                    if products.status_code == 200 and products.json():
+                        product_id = products.json()[0]["id"]
+                if product_id is not None:
+                    buy = requests.post(f"{base}/api/customers/products/buy",
+                                        json={"customerId": customer_id, "productId": product_id, "quantity": 1},
+                                        timeout=5)
+                    if buy.status_code == 200:
+                        return time.time() - start
+            except requests.exceptions.RequestException:
+                pass
+            time.sleep(0.05)
+        return None
+    finally:
+        process.terminate()
+        process.wait()
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__)
+    parser.add_argument("--port", type=int, default=8090)
+    parser.add_argument("--email", default="test@example.com")
+    parser.add_argument("--password", default="password123")
+    parser.add_argument("--runs", type=int, default=3)
+    parser.add_argument("--timeout", type=float, default=120)
+    args = parser.parse_args()
+
+    variants = {
+        "baseline": ["java", "-jar", JAR],
+        "fast-startup": ["java", f"-XX:SharedArchiveFile={FAST_DIR}/application.jsa",
+                         "-Dspring.aot.enabled=true", "-Dspring.profiles.active=fast-startup",
+                         "-jar", FAST_JAR],
+    }
+
+    print("⏱  Time to first successful buy")
+    for name, command in variants.items():
+        jar = command[-1]
+        if not os.path.exists(jar):
+            print(f"  {name:<13} skipped ({jar} not built)")
+            continue
+        timings = []
+        for _ in range(args.runs):
+            elapsed = first_successful_buy(command, args.port, args.email, args.password, args.timeout)
+            if elapsed is not None:
+                timings.append(elapsed)
+        if timings:
+            print(f"  {name:<13} best {min(timings):6.2f}s  avg {sum(timings) / len(timings):6.2f}s  "
+                  f"({len(timings)}/{args.runs} runs)")
+        else:
+            print(f"  {name:<13} no successful buy within {args.timeout}s")
+
+
+if __name__ == "__main__":
+    main()